@@ -0,0 +1,91 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+// run with: java -jar benchmarks/target/benchmarks.jar ChessModelBenchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChessModelBenchmark {
+
+    //"Kiwipete", a busy middlegame position
+    private static final String MIDDLEGAME_FEN = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Param({"start", "middlegame"})
+    public String position;
+
+    private ChessModel chessModel;
+    private Perft perft;
+    private final ChessModel fenModel = new ChessModel();
+    private final StringBuilder fen = new StringBuilder(ChessModel.MAX_FEN_LENGTH);
+
+    @Setup
+    public void setup() {
+        chessModel = new ChessModel();
+        chessModel.loadFen(position.equals("start") ? ChessConstants.startFen : MIDDLEGAME_FEN);
+        perft = new Perft(chessModel, 3);
+    }
+
+    @Benchmark
+    public void pieceAt(Blackhole bh) {
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                bh.consume(chessModel.pieceAt(col, row));
+            }
+        }
+    }
+
+    //the knight jump g1-f3 / the bishop move e2-a6
+    @Benchmark
+    public boolean isValidMove() {
+        return position.equals("start")
+                ? chessModel.isValidMove(6, 0, 5, 2)
+                : chessModel.isValidMove(4, 1, 0, 5);
+    }
+
+    @Benchmark
+    public void isSquareAttacked(Blackhole bh) {
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                bh.consume(chessModel.isSquareAttacked(col, row, Player.WHITE));
+            }
+        }
+    }
+
+    //export into a reused StringBuilder and load it back, nothing allocated
+    @Benchmark
+    public long fenRoundTrip() {
+        fen.setLength(0);
+        chessModel.appendFen(fen);
+        fenModel.loadFen(fen);
+        return fenModel.getHash();
+    }
+
+    @Benchmark
+    public String toFen() {
+        return chessModel.toFen();
+    }
+
+    //the incremental score against counting every piece again
+    @Benchmark
+    public int evaluate() {
+        return Evaluation.evaluate(chessModel);
+    }
+
+    @Benchmark
+    public int evaluateFromScratch() {
+        return Evaluation.evaluateFromScratch(chessModel);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long perft() {
+        return perft.perft(3);
+    }
+}
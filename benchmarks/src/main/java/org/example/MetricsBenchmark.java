@@ -0,0 +1,56 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// cost of the metrics: the same calls with them off, as they ship, and on.
+// Off should match ChessModelBenchmark from before the metrics were added.
+// run with: java -jar benchmarks/target/benchmarks.jar MetricsBenchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MetricsBenchmark {
+
+    private static final String MIDDLEGAME_FEN = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    private ChessModel chessModel;
+    private Perft perft;
+
+    @Setup
+    public void setup() {
+        chessModel = new ChessModel();
+        chessModel.loadFen(MIDDLEGAME_FEN);
+        perft = new Perft(chessModel, 3);
+    }
+
+    //the bishop move e2-a6, timed on every call
+    @Benchmark
+    @Fork(1)
+    public boolean isValidMoveOff() {
+        return chessModel.isValidMove(4, 1, 0, 5);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dchess.metrics=true")
+    public boolean isValidMoveOn() {
+        return chessModel.isValidMove(4, 1, 0, 5);
+    }
+
+    //generateLegalMoves at every node, timed one in Metrics.GENERATION_SAMPLE
+    @Benchmark
+    @Fork(1)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long perftOff() {
+        return perft.perft(3);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Dchess.metrics=true")
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public long perftOn() {
+        return perft.perft(3);
+    }
+}
@@ -0,0 +1,49 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+// cost of journaling one move, what a game server adds to its move path
+// run with: java -jar benchmarks/target/benchmarks.jar MoveJournalBenchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MoveJournalBenchmark {
+
+    @Param({"OS", "GROUP", "EVERY_MOVE"})
+    public String flush;
+
+    private MoveJournal journal;
+    private int gameId;
+    private int ply;
+
+    @Setup
+    public void setup() throws Exception {
+        Path directory = Files.createTempDirectory("journal");
+        directory.toFile().deleteOnExit();
+        journal = MoveJournal.open(directory, MoveJournal.Flush.valueOf(flush));
+        journal.start(++gameId, 1, 2);
+    }
+
+    @TearDown
+    public void tearDown() {
+        journal.close();
+    }
+
+    //games of 200 plies, so segments are rolled and deleted as on a server
+    @Benchmark
+    public void move() {
+        journal.move(gameId, ply, 0x1234, ply * 0x9E3779B97F4A7C15L);
+        if (++ply == 200) {
+            journal.end(gameId);
+            journal.start(++gameId, 1, 2);
+            ply = 0;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package org.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// neural evaluation with the Vector API against the plain loops, on a random network of
+// the sizes a trained one has: evaluate() is the output layer, makeUnmake the accumulator
+// updates of a move and its undo on top of ChessModel's own work.
+// run with: java -jar benchmarks/target/benchmarks.jar NnueBenchmark
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class NnueBenchmark {
+
+    private static final String MIDDLEGAME_FEN = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+
+    @Param({"256", "1024"})
+    public int hidden;
+
+    @Param({"false", "true"})
+    public boolean vector;
+
+    private ChessModel chessModel;
+    private NnueAccumulator accumulator;
+    private final MoveList moves = new MoveList();
+    private int moveCount;
+    private int next;
+
+    @Setup
+    public void setup() {
+        chessModel = new ChessModel();
+        chessModel.loadFen(MIDDLEGAME_FEN);
+        accumulator = new NnueAccumulator(Nnue.random(hidden, 1), vector);
+        chessModel.setAccumulator(accumulator);
+        moveCount = chessModel.generateLegalMoves(moves);
+    }
+
+    @Benchmark
+    public int evaluate() {
+        return accumulator.evaluate(Player.WHITE);
+    }
+
+    //every legal move in turn, quiet moves, captures and castling
+    @Benchmark
+    public void makeUnmake() {
+        chessModel.makeMove(moves.get(next));
+        chessModel.unmakeMove();
+        if (++next == moveCount) next = 0;
+    }
+}
@@ -0,0 +1,194 @@
+package org.example;
+
+//precomputed attack bitboards, built once at class load.
+//Sliding pieces use "magic bitboards": the blockers on a rook or bishop's lines are
+//multiplied by a per-square magic number so the top bits form a dense index into a
+//table of attack sets, making each lookup a mask, a multiply, a shift and a load.
+public final class Attacks {
+
+    //how long building all the tables took, a few tens of milliseconds on a cold JVM
+    static final long INIT_NANOS;
+
+    static final long[] KNIGHT = new long[64];
+    static final long[] KING = new long[64];
+    //squares attacked by a pawn of [player ordinal] standing on [square]
+    static final long[][] PAWN = new long[2][64];
+
+    //squares strictly between two squares on a common line, 0 if not aligned
+    static final long[][] BETWEEN = new long[64][64];
+    //the whole line (rank, file or diagonal) through two squares, 0 if not aligned
+    static final long[][] LINE = new long[64][64];
+
+    //rays from each square, in the order N, E, NE, NW (increasing) then S, W, SW, SE (decreasing)
+    private static final int[][] DIRECTIONS = {{0, 1}, {1, 0}, {1, 1}, {-1, 1}, {0, -1}, {-1, 0}, {-1, -1}, {1, -1}};
+    private static final long[][] RAYS = new long[8][64];
+
+    private static final long[] ROOK_MAGICS = {
+            0x01800088E0114000L, 0x0440004820001000L, 0x0C80081000802000L, 0x8880080010000480L,
+            0x1200085060048200L, 0x018004000E000180L, 0x2400024100841008L, 0x808000450001A280L,
+            0x0212800022C00080L, 0x0002004100220082L, 0x8082801000822002L, 0x1002002040081200L,
+            0x0820800400080081L, 0x0801000204010008L, 0x0094801100020080L, 0x2012800080004500L,
+            0x0090908000400029L, 0x0480220042008100L, 0x0008420010842204L, 0x0020808010000800L,
+            0x0604008008000680L, 0x0082008080040002L, 0x0A01808001000200L, 0x1C00060000830264L,
+            0x1085400480008020L, 0x1020100040004020L, 0x8450200500110440L, 0x00C8100100200902L,
+            0x0000080080800400L, 0x0002000200041009L, 0x80A0028400100841L, 0x0004088200006C01L,
+            0x0480082010400040L, 0x0040080020201000L, 0x0408104101002000L, 0x4018001000800880L,
+            0x1484040080800800L, 0x0100800200800400L, 0x8002002182004408L, 0x1120004102000084L,
+            0xC840044080248008L, 0x0010002000414000L, 0x0410008020008010L, 0x4008020100101000L,
+            0x8001014800110024L, 0xA002000400028080L, 0x0432080201040010L, 0x8800010080420004L,
+            0x4100800510204300L, 0x8080812542090200L, 0x010A820012244200L, 0x0000800800100080L,
+            0x9312011020040A00L, 0x2044000480020080L, 0x0100820108100400L, 0x2088210400508200L,
+            0x0005412180083101L, 0x0020290084104001L, 0x0000811088C02202L, 0x0443002110000489L,
+            0x2042001120040802L, 0x0021000802040001L, 0x0008100082410804L, 0x010000610284004EL,
+    };
+    private static final long[] BISHOP_MAGICS = {
+            0x0208010404040224L, 0x00314102008A0000L, 0xC1B001020A340A00L, 0x0004410021A40020L,
+            0x8012021080400804L, 0x2103100884020002L, 0x2186081404450041L, 0x0109804800A42000L,
+            0x041028421C040412L, 0x000418261ACA0200L, 0x15801088A0810000L, 0x0109AC4101A204C2L,
+            0xA8300404200A0000L, 0x0080511042100000L, 0x10008C008C112800L, 0x8001410400C3850AL,
+            0x8010000690020804L, 0x0408009022008405L, 0x0008024043850011L, 0x8404200804210148L,
+            0x0002000412020000L, 0x0802000101008222L, 0x20010A4200902400L, 0x0422000044540404L,
+            0x1108048488101040L, 0x0050240808886091L, 0x1408020011120208L, 0x0058080010820002L,
+            0x02A1001103004004L, 0x8090020841008E00L, 0x200400A0004A1000L, 0x0000420144808400L,
+            0x004823080810A010L, 0x0044042200210200L, 0x000B040100021806L, 0x00A2004041040101L,
+            0xA190010410020200L, 0x08020401C1080808L, 0x0A040102020C0090L, 0x8401041100088843L,
+            0x130804100A004421L, 0x00D2180208000240L, 0x8162001402020400L, 0x00200C2214000806L,
+            0x0120080100440404L, 0x000925010A002502L, 0x008A0C03040C0600L, 0x0401024096008101L,
+            0x9902090402420488L, 0x9004210402202000L, 0x0834020082210000L, 0x0100090642022500L,
+            0x50C0001002020804L, 0x03424A9049020000L, 0x2005083004008402L, 0x008802008401080CL,
+            0x0000820041444000L, 0x4470024108280201L, 0x004084804C040400L, 0x0040800100460801L,
+            0x0040240008830400L, 0x2020000888100420L, 0x4A402820A5860200L, 0x0084011004010041L,
+    };
+
+    private static final long[] ROOK_MASKS = new long[64];
+    private static final int[] ROOK_SHIFTS = new int[64];
+    private static final int[] ROOK_OFFSETS = new int[64];
+    private static final long[] ROOK_TABLE;
+
+    private static final long[] BISHOP_MASKS = new long[64];
+    private static final int[] BISHOP_SHIFTS = new int[64];
+    private static final int[] BISHOP_OFFSETS = new int[64];
+    private static final long[] BISHOP_TABLE;
+
+    static {
+        long start = System.nanoTime();
+
+        int[][] knightSteps = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+        for (int sq = 0; sq < 64; sq++) {
+            int col = Bitboards.col(sq);
+            int row = Bitboards.row(sq);
+
+            for (int[] step : knightSteps) {
+                KNIGHT[sq] |= bitIfOnBoard(col + step[0], row + step[1]);
+            }
+            for (int[] step : DIRECTIONS) {
+                KING[sq] |= bitIfOnBoard(col + step[0], row + step[1]);
+            }
+            PAWN[0][sq] = bitIfOnBoard(col - 1, row + 1) | bitIfOnBoard(col + 1, row + 1);
+            PAWN[1][sq] = bitIfOnBoard(col - 1, row - 1) | bitIfOnBoard(col + 1, row - 1);
+
+            for (int dir = 0; dir < 8; dir++) {
+                for (int c = col + DIRECTIONS[dir][0], r = row + DIRECTIONS[dir][1];
+                     Bitboards.onBoard(c, r); c += DIRECTIONS[dir][0], r += DIRECTIONS[dir][1]) {
+                    RAYS[dir][sq] |= Bitboards.bit(Bitboards.square(c, r));
+                }
+            }
+        }
+
+        for (int a = 0; a < 64; a++) {
+            for (int dir = 0; dir < 8; dir++) {
+                long ray = RAYS[dir][a];
+                while (ray != 0) {
+                    int b = Bitboards.first(ray);
+                    ray &= ray - 1;
+                    BETWEEN[a][b] = RAYS[dir][a] & ~RAYS[dir][b] & ~Bitboards.bit(b);
+                    LINE[a][b] = RAYS[dir][a] | RAYS[(dir + 4) % 8][a] | Bitboards.bit(a);
+                }
+            }
+        }
+
+        ROOK_TABLE = buildMagicTable(true, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_OFFSETS);
+        BISHOP_TABLE = buildMagicTable(false, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_OFFSETS);
+
+        INIT_NANOS = System.nanoTime() - start;
+    }
+
+    //one table for all squares, each square owning 2^(relevant blockers) entries from its offset
+    private static long[] buildMagicTable(boolean rook, long[] masks, long[] magics, int[] shifts, int[] offsets) {
+        int size = 0;
+        for (int sq = 0; sq < 64; sq++) {
+            masks[sq] = rook ? rookMask(sq) : bishopMask(sq);
+            shifts[sq] = 64 - Long.bitCount(masks[sq]);
+            offsets[sq] = size;
+            size += 1 << Long.bitCount(masks[sq]);
+        }
+
+        long[] table = new long[size];
+        for (int sq = 0; sq < 64; sq++) {
+            //walk every subset of the mask
+            long subset = 0;
+            do {
+                int index = offsets[sq] + (int) ((subset * magics[sq]) >>> shifts[sq]);
+                table[index] = rook ? slowRook(sq, subset) : slowBishop(sq, subset);
+                subset = (subset - masks[sq]) & masks[sq];
+            } while (subset != 0);
+        }
+        return table;
+    }
+
+    private Attacks() {
+    }
+
+    private static long bitIfOnBoard(int col, int row) {
+        return Bitboards.onBoard(col, row) ? Bitboards.bit(Bitboards.square(col, row)) : 0L;
+    }
+
+    //slider attacks from the rays, used to fill the magic tables
+    static long slowRook(int square, long occupied) {
+        return ray(0, square, occupied) | ray(1, square, occupied)
+                | ray(4, square, occupied) | ray(5, square, occupied);
+    }
+
+    static long slowBishop(int square, long occupied) {
+        return ray(2, square, occupied) | ray(3, square, occupied)
+                | ray(6, square, occupied) | ray(7, square, occupied);
+    }
+
+    //squares whose occupancy matters for a slider: its rays minus the last square of each
+    static long rookMask(int square) {
+        return innerRay(0, square) | innerRay(1, square) | innerRay(4, square) | innerRay(5, square);
+    }
+
+    static long bishopMask(int square) {
+        return innerRay(2, square) | innerRay(3, square) | innerRay(6, square) | innerRay(7, square);
+    }
+
+    private static long innerRay(int dir, int square) {
+        long ray = RAYS[dir][square];
+        if (ray == 0) return 0;
+        int last = dir < 4 ? 63 - Long.numberOfLeadingZeros(ray) : Long.numberOfTrailingZeros(ray);
+        return ray & ~Bitboards.bit(last);
+    }
+
+    public static long rook(int square, long occupied) {
+        return ROOK_TABLE[ROOK_OFFSETS[square] + (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+    }
+
+    public static long bishop(int square, long occupied) {
+        return BISHOP_TABLE[BISHOP_OFFSETS[square] + (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+    }
+
+    public static long queen(int square, long occupied) {
+        return rook(square, occupied) | bishop(square, occupied);
+    }
+
+    //the ray up to and including the first blocker
+    private static long ray(int dir, int square, long occupied) {
+        long ray = RAYS[dir][square];
+        long blockers = ray & occupied;
+        if (blockers == 0) return ray;
+
+        int blocker = dir < 4 ? Long.numberOfTrailingZeros(blockers) : 63 - Long.numberOfLeadingZeros(blockers);
+        return ray ^ RAYS[dir][blocker];
+    }
+}
@@ -0,0 +1,251 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+//builds Bitbases tables by retrograde analysis. Every legal position of king and piece against
+//king is set up on a ChessModel once, and the positions its legal moves lead to are kept as
+//table indexes. Mates and stalemates are scored first. Then passes over those lists work back
+//from them, a position is won if one move reaches a position lost for the opponent, and lost if
+//all of them reach positions the opponent wins, until a pass changes nothing. What is left is
+//a draw. Both the set up and the passes are split over a pool of threads.
+public class BitbaseGenerator {
+
+    //still open during generation, or no legal position
+    private static final byte OPEN = 0;
+    private static final byte ILLEGAL = 4;
+    //work is split in more chunks than threads, so a slow chunk doesn't leave the others idle
+    private static final int CHUNKS_PER_THREAD = 8;
+
+    private final int threads;
+    //finished tables (file contents) by rank, the pawn table needs the pieces it promotes to
+    private final byte[][] tables = new byte[6][];
+
+    public BitbaseGenerator(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("Need at least one thread: " + threads);
+        this.threads = threads;
+    }
+
+    //writes the table of king and piece of rank against king to directory, returns the file
+    public Path write(Path directory, int rank) throws IOException {
+        Path file = directory.resolve(Bitbases.tableName(rank) + Bitbases.FILE_SUFFIX);
+        Files.write(file, generate(rank));
+        return file;
+    }
+
+    //the table as it is stored in a file: header, then 2 bits per position
+    public synchronized byte[] generate(int rank) {
+        if (rank < ChessModel.QUEEN || rank > ChessModel.PAWN) throw new IllegalArgumentException("No table for rank " + rank);
+        if (tables[rank] != null) return tables[rank];
+        if (rank == ChessModel.PAWN) {
+            generate(ChessModel.QUEEN);
+            generate(ChessModel.ROOK);
+        }
+
+        byte[] results = solve(rank);
+        ByteBuffer table = ByteBuffer.allocate(Bitbases.HEADER_SIZE + Bitbases.POSITIONS / 4);
+        table.putLong(Bitbases.MAGIC | rank);
+        table.put(Bitbases.tableName(rank).getBytes());
+        for (int index = 0; index < Bitbases.POSITIONS; index++) {
+            int result = results[index] == ILLEGAL ? Bitbases.UNKNOWN : results[index];
+            int at = Bitbases.HEADER_SIZE + (index >>> 2);
+            table.put(at, (byte) (table.get(at) | result << ((index & 3) * 2)));
+        }
+        tables[rank] = table.array();
+        return tables[rank];
+    }
+
+    private byte[] solve(int rank) {
+        byte[] results = new byte[Bitbases.POSITIONS];
+        int chunkCount = threads * CHUNKS_PER_THREAD;
+        int chunkSize = (Bitbases.POSITIONS + chunkCount - 1) / chunkCount;
+        List<Chunk> chunks = new ArrayList<>();
+        for (int start = 0; start < Bitbases.POSITIONS; start += chunkSize) {
+            chunks.add(new Chunk(start, Math.min(start + chunkSize, Bitbases.POSITIONS)));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "bitbase-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (Chunk chunk : chunks) {
+                futures.add(executor.submit(() -> chunk.setUp(rank, results)));
+            }
+            sum(futures);
+
+            //a pass reads what other chunks decide in the same pass or not, either way the
+            //results only go from open to final, so the passes reach the same fixed point
+            while (true) {
+                futures.clear();
+                for (Chunk chunk : chunks) {
+                    futures.add(executor.submit(() -> chunk.pass(results)));
+                }
+                if (sum(futures) == 0) break;
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        for (int index = 0; index < results.length; index++) {
+            if (results[index] == OPEN) results[index] = (byte) Bitbases.DRAW;
+        }
+        return results;
+    }
+
+    private static int sum(List<Future<Integer>> futures) {
+        int sum = 0;
+        try {
+            for (Future<Integer> future : futures) {
+                sum += future.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Bitbase generation failed", ex.getCause());
+        }
+        return sum;
+    }
+
+    //the positions start..end, with the moves of each as indexes into the table being made,
+    //or as minus the result of the opponent where a move leaves the table
+    private class Chunk {
+        final int start;
+        final int end;
+        final int[] offsets;
+        int[] successors = new int[1024];
+
+        Chunk(int start, int end) {
+            this.start = start;
+            this.end = end;
+            this.offsets = new int[end - start + 1];
+        }
+
+        //returns how many positions were decided straight away
+        int setUp(int rank, byte[] results) {
+            ChessModel chessModel = new ChessModel();
+            MoveList moves = new MoveList();
+            int decided = 0;
+            int count = 0;
+            for (int index = start; index < end; index++) {
+                offsets[index - start] = count;
+                int side = index >>> 18;
+                int whiteKing = (index >>> 12) & 63;
+                int blackKing = (index >>> 6) & 63;
+                int square = index & 63;
+                Player player = side == 0 ? Player.WHITE : Player.BLACK;
+                Player opponent = side == 0 ? Player.BLACK : Player.WHITE;
+
+                if (whiteKing == blackKing || whiteKing == square || blackKing == square
+                        || (rank == ChessModel.PAWN && (Bitboards.row(square) == 0 || Bitboards.row(square) == 7))) {
+                    results[index] = ILLEGAL;
+                    continue;
+                }
+                chessModel.clearBoard(player);
+                chessModel.putPiece(ChessModel.KING, whiteKing);
+                chessModel.putPiece(6 + ChessModel.KING, blackKing);
+                chessModel.putPiece(rank, square);
+                //the player who just moved can't be in check, this also keeps the kings apart
+                if (chessModel.isInCheck(opponent)) {
+                    results[index] = ILLEGAL;
+                    continue;
+                }
+
+                int moveCount = chessModel.generateLegalMoves(moves);
+                if (moveCount == 0) {
+                    results[index] = (byte) (chessModel.isInCheck(player) ? Bitbases.LOSS : Bitbases.DRAW);
+                    decided++;
+                    continue;
+                }
+                if (count + moveCount > successors.length) successors = Arrays.copyOf(successors, successors.length * 2);
+                for (int i = 0; i < moveCount; i++) {
+                    chessModel.makeMove(moves.get(i));
+                    successors[count++] = successor(chessModel, rank);
+                    chessModel.unmakeMove();
+                }
+            }
+            offsets[end - start] = count;
+            return decided;
+        }
+
+        //returns how many positions were decided
+        int pass(byte[] results) {
+            int decided = 0;
+            for (int index = start; index < end; index++) {
+                if (results[index] != OPEN) continue;
+                boolean allWon = true;
+                int result = OPEN;
+                for (int i = offsets[index - start]; i < offsets[index - start + 1]; i++) {
+                    int next = successors[i] >= 0 ? results[successors[i]] : -successors[i];
+                    if (next == Bitbases.LOSS) {
+                        result = Bitbases.WIN;
+                        break;
+                    }
+                    if (next != Bitbases.WIN) allWon = false;
+                }
+                if (result == OPEN && allWon) result = Bitbases.LOSS;
+                if (result != OPEN) {
+                    results[index] = (byte) result;
+                    decided++;
+                }
+            }
+            return decided;
+        }
+    }
+
+    //the index of the position on the board, or minus its result if it is in another table
+    private int successor(ChessModel chessModel, int rank) {
+        long white = chessModel.getPlayerBoard(Player.WHITE);
+        //the piece was taken, bare kings
+        if (Long.bitCount(white) == 1) return -Bitbases.DRAW;
+
+        int side = chessModel.getPlayerInTurn().ordinal();
+        int whiteKing = Bitboards.first(chessModel.getPieceBoard(ChessModel.KING));
+        int blackKing = Bitboards.first(chessModel.getPieceBoard(6 + ChessModel.KING));
+        int square = Bitboards.first(white & ~chessModel.getPieceBoard(ChessModel.KING));
+        int index = Bitbases.index(side, whiteKing, blackKing, square);
+
+        //a promoted pawn is looked up in the table of what it became
+        int pieceRank = chessModel.pieceCodeAt(square) % 6;
+        if (pieceRank != rank) return -lookup(pieceRank, index);
+        return index;
+    }
+
+    //read on the workers, so no generate() here: the tables needed are made before solve() starts
+    private int lookup(int rank, int index) {
+        byte[] table = tables[rank];
+        //only a bishop or knight has no table, and neither can mate alone
+        return table == null ? Bitbases.DRAW : Bitbases.read(ByteBuffer.wrap(table), index);
+    }
+
+    // usage: BitbaseGenerator <directory> [threads]
+    //writes KQK, KRK and KPK
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("usage: BitbaseGenerator <directory> [threads]");
+            return;
+        }
+        Path directory = Path.of(args[0]);
+        Files.createDirectories(directory);
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        BitbaseGenerator generator = new BitbaseGenerator(threads);
+        for (int rank : new int[]{ChessModel.QUEEN, ChessModel.ROOK, ChessModel.PAWN}) {
+            long start = System.nanoTime();
+            Path file = generator.write(directory, rank);
+            System.out.println(file + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+        }
+    }
+}
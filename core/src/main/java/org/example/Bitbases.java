@@ -0,0 +1,89 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+//win/draw/loss tables for king and one piece against a bare king (KQK, KRK, KPK, ...),
+//made by BitbaseGenerator. Each table file is memory-mapped and probed in place: one index
+//computation and one byte read, with no copy on the heap. Shared by any number of threads.
+public class Bitbases {
+
+    //probe results, for the player in turn. Also the 2-bit codes in the files.
+    public static final int UNKNOWN = 0;
+    public static final int DRAW = 1;
+    public static final int WIN = 2;
+    public static final int LOSS = 3;
+
+    //white is always the side with the piece in a table: side to move, white king, black king, piece
+    static final int POSITIONS = 2 * 64 * 64 * 64;
+    //"BITBASE" and the piece rank, then 8 bytes of the table's name
+    static final int HEADER_SIZE = 16;
+    static final long MAGIC = 0x4249544241534500L;
+    static final String FILE_SUFFIX = ".bitbase";
+    //the piece letter in table names, by rank
+    private static final String PIECE_LETTERS = "KQBRNP";
+
+    //mapped table per rank of the extra piece, null where none was loaded
+    private final ByteBuffer[] tables = new ByteBuffer[6];
+
+    //loads every table file found in directory, which may hold none
+    public static Bitbases open(Path directory) throws IOException {
+        Bitbases bitbases = new Bitbases();
+        for (int rank = ChessModel.QUEEN; rank <= ChessModel.PAWN; rank++) {
+            Path file = directory.resolve(tableName(rank) + FILE_SUFFIX);
+            if (Files.exists(file)) bitbases.tables[rank] = map(file, rank);
+        }
+        return bitbases;
+    }
+
+    private static ByteBuffer map(Path file, int rank) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != HEADER_SIZE + POSITIONS / 4) throw new IOException("Bad bitbase size: " + file);
+            ByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (table.getLong(0) != (MAGIC | rank)) throw new IOException("Not a " + tableName(rank) + " bitbase: " + file);
+            return table;
+        }
+    }
+
+    //"KQK" for the queen
+    static String tableName(int rank) {
+        return "K" + PIECE_LETTERS.charAt(rank) + "K";
+    }
+
+    public boolean has(int rank) {
+        return tables[rank] != null;
+    }
+
+    //WIN, DRAW or LOSS for the player in turn, UNKNOWN when no table covers the position
+    public int probe(ChessModel chessModel) {
+        long white = chessModel.getPlayerBoard(Player.WHITE);
+        long black = chessModel.getPlayerBoard(Player.BLACK);
+        if (Long.bitCount(white | black) != 3) return UNKNOWN;
+
+        //the side with two pieces is white in the tables, colours are swapped by mirroring the ranks
+        int strong = Long.bitCount(white) == 2 ? 0 : 1;
+        long pieces = (strong == 0 ? white : black) & ~chessModel.getPieceBoard(strong * 6 + ChessModel.KING);
+        int pieceSquare = Bitboards.first(pieces);
+        int rank = chessModel.pieceCodeAt(pieceSquare) % 6;
+        ByteBuffer table = tables[rank];
+        if (table == null) return UNKNOWN;
+
+        int flip = strong == 0 ? 0 : 56;
+        int side = chessModel.getPlayerInTurn().ordinal() ^ strong;
+        int strongKing = Bitboards.first(chessModel.getPieceBoard(strong * 6 + ChessModel.KING)) ^ flip;
+        int weakKing = Bitboards.first(chessModel.getPieceBoard((strong ^ 1) * 6 + ChessModel.KING)) ^ flip;
+        return read(table, index(side, strongKing, weakKing, pieceSquare ^ flip));
+    }
+
+    static int index(int side, int strongKing, int weakKing, int pieceSquare) {
+        return side << 18 | strongKing << 12 | weakKing << 6 | pieceSquare;
+    }
+
+    static int read(ByteBuffer table, int index) {
+        return (table.get(HEADER_SIZE + (index >>> 2)) >>> ((index & 3) * 2)) & 3;
+    }
+}
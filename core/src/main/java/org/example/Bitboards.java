@@ -0,0 +1,38 @@
+package org.example;
+
+//square index = row * 8 + col  (a1 = 0, h1 = 7, a8 = 56, h8 = 63)
+public final class Bitboards {
+
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_H = FILE_A << 7;
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_8 = RANK_1 << 56;
+
+    private Bitboards() {
+    }
+
+    public static int square(int col, int row) {
+        return row * 8 + col;
+    }
+
+    public static int col(int square) {
+        return square & 7;
+    }
+
+    public static int row(int square) {
+        return square >>> 3;
+    }
+
+    public static boolean onBoard(int col, int row) {
+        return col >= 0 && col < 8 && row >= 0 && row < 8;
+    }
+
+    public static long bit(int square) {
+        return 1L << square;
+    }
+
+    //index of the lowest set bit, board must not be empty
+    public static int first(long board) {
+        return Long.numberOfTrailingZeros(board);
+    }
+}
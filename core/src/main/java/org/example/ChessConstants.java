@@ -19,4 +19,6 @@ public interface ChessConstants {
     final static String bRook =   "Rook-black";
     final static String wRook =   "Rook-white";
 
+    final static String startFen = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
 }
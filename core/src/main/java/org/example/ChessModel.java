@@ -0,0 +1,1031 @@
+package org.example;
+
+import java.nio.CharBuffer;
+import java.util.Arrays;
+
+public class ChessModel {
+
+    static final int EMPTY = -1;
+
+    private static final Player[] PLAYERS = Player.values();
+    private static final Rank[] RANKS = Rank.values();
+
+    //image names indexed by piece code (player * 6 + rank)
+    private static final String[] IMG_NAMES = {
+            ChessConstants.wKing, ChessConstants.wQueen, ChessConstants.wBishop,
+            ChessConstants.wRook, ChessConstants.wKnight, ChessConstants.wPawn,
+            ChessConstants.bKing, ChessConstants.bQueen, ChessConstants.bBishop,
+            ChessConstants.bRook, ChessConstants.bKnight, ChessConstants.bPawn,
+    };
+
+    //one immutable ChessPiece per (piece code, square), so pieceAt never allocates
+    private static final ChessPiece[] PIECES = new ChessPiece[12 * 64];
+
+    static {
+        for (int piece = 0; piece < 12; piece++) {
+            for (int sq = 0; sq < 64; sq++) {
+                PIECES[piece * 64 + sq] = new ChessPiece(Bitboards.col(sq), Bitboards.row(sq),
+                        playerOf(piece), rankOf(piece), IMG_NAMES[piece]);
+            }
+        }
+    }
+
+    //FEN letter per piece code
+    private static final String FEN_PIECES = "KQBRNPkqbrnp";
+    //letter per piece code in toString
+    private static final String BOARD_PIECES = "kqbrnpKQBRNP";
+    //64 pieces, 7 slashes and the other fields with room to spare
+    static final int MAX_FEN_LENGTH = 100;
+
+    //Rank ordinals, for indexing the bitboards
+    static final int KING = 0;
+    static final int QUEEN = 1;
+    static final int BISHOP = 2;
+    static final int ROOK = 3;
+    static final int KNIGHT = 4;
+    static final int PAWN = 5;
+
+    //castling rights bits, in Polyglot's order
+    static final int WHITE_KINGSIDE = 1;
+    static final int WHITE_QUEENSIDE = 2;
+    static final int BLACK_KINGSIDE = 4;
+    static final int BLACK_QUEENSIDE = 8;
+    private static final String CASTLING_LETTERS = "KQkq";
+    //rights left after a move from or to each square, a king or rook square takes its own away
+    private static final int[] CASTLING_KEPT = new int[64];
+    //squares between king and rook that must be empty, by side and kingside/queenside
+    private static final long[][] CASTLING_PATH = {
+            {Bitboards.bit(5) | Bitboards.bit(6), Bitboards.bit(1) | Bitboards.bit(2) | Bitboards.bit(3)},
+            {Bitboards.bit(61) | Bitboards.bit(62), Bitboards.bit(57) | Bitboards.bit(58) | Bitboards.bit(59)},
+    };
+
+    static {
+        Arrays.fill(CASTLING_KEPT, 15);
+        CASTLING_KEPT[4] = 15 & ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        CASTLING_KEPT[7] = 15 & ~WHITE_KINGSIDE;
+        CASTLING_KEPT[0] = 15 & ~WHITE_QUEENSIDE;
+        CASTLING_KEPT[60] = 15 & ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        CASTLING_KEPT[63] = 15 & ~BLACK_KINGSIDE;
+        CASTLING_KEPT[56] = 15 & ~BLACK_QUEENSIDE;
+    }
+
+    static final int NO_SQUARE = -1;
+
+    //gameState() results
+    public static final int ONGOING = 0;
+    public static final int CHECKMATE = 1;
+    public static final int STALEMATE = 2;
+    public static final int FIFTY_MOVES = 3;
+    public static final int REPETITION = 4;
+
+    //plies without a capture or pawn move that make a draw
+    public static final int FIFTY_MOVE_PLIES = 100;
+
+
+    //bitboards, one per piece code, plus occupancy per player and overall
+    private final long[] pieceBoards = new long[12];
+    private final long[] playerBoards = new long[2];
+    private long occupied;
+
+    //piece code on each square, EMPTY if none
+    private final int[] squares = new int[64];
+
+    private  Player playerInTurn = Player.WHITE;
+
+    //zobrist key of the position, kept up to date by every board change
+    private long hash;
+
+    //castling rights bits still held, and the square a pawn that just moved two may be taken
+    //on, NO_SQUARE unless a pawn of the side to move stands next to it
+    private int castlingRights;
+    private int epSquare = NO_SQUARE;
+    //plies since the last capture or pawn move
+    private int halfmoveClock;
+
+    //Evaluation's middlegame and endgame sums and phase, kept up to date like the hash
+    private int midgameScore;
+    private int endgameScore;
+    private int phase;
+    //first layer of a neural network evaluation, kept up to date the same way; null for none
+    private NnueAccumulator accumulator;
+
+    //undo record per ply: move in bits 0-15, captured piece + 1 in bits 16-19, then the state
+    //before the move: castling rights in 20-23, en passant square + 1 in 24-30 and the halfmove
+    //clock in 32-63. The hash before the move goes in hashStack, which is also the history the
+    //repetition checks look back through.
+    private static final long NULL_MOVE_UNDO = 1L << 31;
+
+    private long[] undoStack = new long[256];
+    private long[] hashStack = new long[256];
+    private int undoCount;
+
+    //check and pin information, cached for one position (hash) and side at a time
+    private boolean checkInfoValid;
+    private long checkInfoHash;
+    private int checkInfoSide;
+    private int kingSquare;
+    private long checkers;
+    private long pinned;
+
+    //buffer for single move lookups
+    private final MoveList scratchMoves = new MoveList();
+    //buffer writeFen fills
+    private final char[] fenChars = new char[MAX_FEN_LENGTH];
+
+    //plies played before the first move in the undo stack, for the FEN move number
+    private int startPly;
+    //generateLegalMoves calls, to time one in Metrics.GENERATION_SAMPLE
+    private int generationCalls;
+
+    public ChessModel() {
+        Arrays.fill(squares, EMPTY);
+    }
+
+    static int pieceCode(Player player, Rank rank) {
+        return player.ordinal() * 6 + rank.ordinal();
+    }
+
+    static Player playerOf(int piece) {
+        return PLAYERS[piece / 6];
+    }
+
+    static Rank rankOf(int piece) {
+        return RANKS[piece % 6];
+    }
+
+    void reset(){
+
+        clear();
+
+        for(int i=0;i<2;i++)
+        {
+            addPiece(pieceCode(Player.BLACK, Rank.ROOK), Bitboards.square(0+i*7,7));
+            addPiece(pieceCode(Player.BLACK, Rank.KNIGHT), Bitboards.square(1+i*5,7));
+            addPiece(pieceCode(Player.BLACK, Rank.BISHOP), Bitboards.square(2+i*3,7));
+
+            addPiece(pieceCode(Player.WHITE, Rank.ROOK), Bitboards.square(0+i*7,0));
+            addPiece(pieceCode(Player.WHITE, Rank.KNIGHT), Bitboards.square(1+i*5,0));
+            addPiece(pieceCode(Player.WHITE, Rank.BISHOP), Bitboards.square(2+i*3,0));
+        }
+
+        for(int i=0;i<8;i++)
+        {
+            addPiece(pieceCode(Player.BLACK, Rank.PAWN), Bitboards.square(i,6));
+            addPiece(pieceCode(Player.WHITE, Rank.PAWN), Bitboards.square(i,1));
+        }
+
+        addPiece(pieceCode(Player.BLACK, Rank.QUEEN), Bitboards.square(3,7));
+        addPiece(pieceCode(Player.WHITE, Rank.QUEEN), Bitboards.square(3,0));
+
+
+        addPiece(pieceCode(Player.BLACK, Rank.KING), Bitboards.square(4,7));
+        addPiece(pieceCode(Player.WHITE, Rank.KING), Bitboards.square(4,0));
+
+        playerInTurn = Player.WHITE;
+        castlingRights = WHITE_KINGSIDE | WHITE_QUEENSIDE | BLACK_KINGSIDE | BLACK_QUEENSIDE;
+        hash ^= Zobrist.CASTLING[castlingRights];
+
+    }
+
+    private void clear() {
+        Arrays.fill(pieceBoards, 0L);
+        Arrays.fill(playerBoards, 0L);
+        occupied = 0L;
+        Arrays.fill(squares, EMPTY);
+        undoCount = 0;
+        startPly = 0;
+        playerInTurn = Player.WHITE;
+        hash = 0L;
+        castlingRights = 0;
+        epSquare = NO_SQUARE;
+        halfmoveClock = 0;
+        midgameScore = 0;
+        endgameScore = 0;
+        phase = 0;
+        if (accumulator != null) accumulator.reset();
+        checkInfoValid = false;
+    }
+
+    //empties the board for a position set up piece by piece with putPiece, toMove to play.
+    //Much cheaper than loadFen when a generator walks through millions of positions.
+    void clearBoard(Player toMove) {
+        clear();
+        playerInTurn = toMove;
+        if (toMove == Player.BLACK) hash ^= Zobrist.BLACK_TO_MOVE;
+    }
+
+    void putPiece(int piece, int square) {
+        addPiece(piece, square);
+    }
+
+    //loads a position from FEN. Castling rights without their king and rook in place are dropped,
+    //and so is an en passant square no pawn can take on. Reads the CharSequence in place, so
+    //loading from a StringBuilder or CharBuffer allocates nothing unless it is invalid.
+    public void loadFen(CharSequence fen) {
+        clear();
+        int length = fen.length();
+
+        int i = skipSpaces(fen, 0);
+        int col = 0;
+        int row = 7;
+        for (; i < length && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            if (c == '/') {
+                if (col != 8 || row == 0) throw invalidFen(fen);
+                col = 0;
+                row--;
+            } else if (c >= '1' && c <= '8') {
+                col += c - '0';
+                if (col > 8) throw invalidFen(fen);
+            } else {
+                int piece = FEN_PIECES.indexOf(c);
+                if (piece < 0 || col > 7) throw invalidFen(fen);
+                addPiece(piece, Bitboards.square(col, row));
+                col++;
+            }
+        }
+        if (row != 0 || col != 8) throw invalidFen(fen);
+        if (Long.bitCount(pieceBoards[KING]) != 1 || Long.bitCount(pieceBoards[6 + KING]) != 1) throw invalidFen(fen);
+
+        //side to move, castling, en passant, halfmove clock and fullmove number may be left off
+        i = skipSpaces(fen, i);
+        if (i < length) {
+            char side = fen.charAt(i++);
+            if (side != 'w' && side != 'b') throw invalidFen(fen);
+            playerInTurn = side == 'w' ? Player.WHITE : Player.BLACK;
+        }
+        i = skipSpaces(fen, i);
+        for (; i < length && fen.charAt(i) != ' '; i++) {
+            char c = fen.charAt(i);
+            if (c == '-') continue;
+            int right = CASTLING_LETTERS.indexOf(c);
+            if (right < 0) throw invalidFen(fen);
+            castlingRights |= 1 << right;
+        }
+        castlingRights &= castlingRightsInPlace();
+        i = skipSpaces(fen, i);
+        if (i < length && fen.charAt(i) != '-') {
+            if (i + 1 >= length || fen.charAt(i) < 'a' || fen.charAt(i) > 'h'
+                    || (fen.charAt(i + 1) != '3' && fen.charAt(i + 1) != '6')) throw invalidFen(fen);
+            int square = Bitboards.square(fen.charAt(i) - 'a', fen.charAt(i + 1) - '1');
+            if (canTakeEnPassant(square)) epSquare = square;
+            i++;
+        }
+        if (i < length) i++;
+        i = skipSpaces(fen, i);
+        int end = skipDigits(fen, i);
+        halfmoveClock = end > i ? parseNumber(fen, i, end) : 0;
+        i = skipSpaces(fen, end);
+        end = skipDigits(fen, i);
+        int fullMove = end > i ? parseNumber(fen, i, end) : 1;
+        if (skipSpaces(fen, end) != length) throw invalidFen(fen);
+
+        startPly = Math.max(0, fullMove - 1) * 2 + playerInTurn.ordinal();
+        //addPiece already hashed the pieces
+        if (playerInTurn == Player.BLACK) hash ^= Zobrist.BLACK_TO_MOVE;
+        hash ^= Zobrist.CASTLING[castlingRights];
+        if (epSquare != NO_SQUARE) hash ^= Zobrist.EN_PASSANT[Bitboards.col(epSquare)];
+    }
+
+    //the castling rights whose king and rook stand on their squares
+    private int castlingRightsInPlace() {
+        int rights = 0;
+        for (int side = 0; side < 2; side++) {
+            int home = side * 56;
+            if (squares[home + 4] != side * 6 + KING) continue;
+            if (squares[home + 7] == side * 6 + ROOK) rights |= WHITE_KINGSIDE << (side * 2);
+            if (squares[home] == side * 6 + ROOK) rights |= WHITE_QUEENSIDE << (side * 2);
+        }
+        return rights;
+    }
+
+    //true if the side to move has a pawn that can take on square, behind an enemy pawn that just moved two
+    private boolean canTakeEnPassant(int square) {
+        int side = playerInTurn.ordinal();
+        int pushed = square + (side == 0 ? -8 : 8);
+        if (Bitboards.row(square) != (side == 0 ? 5 : 2) || squares[square] != EMPTY
+                || squares[pushed] != (side ^ 1) * 6 + PAWN) return false;
+        return (Attacks.PAWN[side ^ 1][square] & pieceBoards[side * 6 + PAWN]) != 0;
+    }
+
+    //FEN of the current position appended to out
+    public StringBuilder appendFen(StringBuilder out) {
+        return out.append(fenChars, 0, writeFen());
+    }
+
+    //FEN of the current position put into out, BufferOverflowException if it doesn't fit
+    public CharBuffer putFen(CharBuffer out) {
+        return out.put(fenChars, 0, writeFen());
+    }
+
+    public String toFen() {
+        return new String(fenChars, 0, writeFen());
+    }
+
+    //fills fenChars, returns the length. The en passant square is only written when a pawn
+    //can take there, as in the hash.
+    private int writeFen() {
+        char[] out = fenChars;
+        int n = 0;
+        for (int row = 7; row >= 0; row--) {
+            int empty = 0;
+            for (int col = 0; col < 8; col++) {
+                int piece = squares[row * 8 + col];
+                if (piece == EMPTY) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    out[n++] = (char) ('0' + empty);
+                    empty = 0;
+                }
+                out[n++] = FEN_PIECES.charAt(piece);
+            }
+            if (empty > 0) out[n++] = (char) ('0' + empty);
+            if (row > 0) out[n++] = '/';
+        }
+        out[n++] = ' ';
+        out[n++] = playerInTurn == Player.WHITE ? 'w' : 'b';
+        out[n++] = ' ';
+        if (castlingRights == 0) out[n++] = '-';
+        for (int right = 0; right < 4; right++) {
+            if ((castlingRights & (1 << right)) != 0) out[n++] = CASTLING_LETTERS.charAt(right);
+        }
+        out[n++] = ' ';
+        if (epSquare == NO_SQUARE) {
+            out[n++] = '-';
+        } else {
+            out[n++] = (char) ('a' + Bitboards.col(epSquare));
+            out[n++] = (char) ('1' + Bitboards.row(epSquare));
+        }
+        out[n++] = ' ';
+        n = writeNumber(out, n, halfmoveClock);
+        out[n++] = ' ';
+        return writeNumber(out, n, (startPly + undoCount) / 2 + 1);
+    }
+
+    private static int writeNumber(char[] out, int n, int value) {
+        int digits = value < 10 ? 1 : value < 100 ? 2 : value < 1000 ? 3 : value < 10000 ? 4 : 10;
+        if (digits == 10) {
+            String text = Integer.toString(value);
+            text.getChars(0, text.length(), out, n);
+            return n + text.length();
+        }
+        for (int i = n + digits - 1; i >= n; i--) {
+            out[i] = (char) ('0' + value % 10);
+            value /= 10;
+        }
+        return n + digits;
+    }
+
+    private static int skipSpaces(CharSequence s, int i) {
+        while (i < s.length() && s.charAt(i) == ' ') i++;
+        return i;
+    }
+
+    private static int skipDigits(CharSequence s, int i) {
+        while (i < s.length() && s.charAt(i) >= '0' && s.charAt(i) <= '9') i++;
+        return i;
+    }
+
+    private static int parseNumber(CharSequence s, int start, int end) {
+        if (end - start > 6) throw invalidFen(s);
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            value = value * 10 + s.charAt(i) - '0';
+        }
+        return value;
+    }
+
+    private static IllegalArgumentException invalidFen(CharSequence fen) {
+        return new IllegalArgumentException("Invalid FEN: " + fen);
+    }
+
+    private void addPiece(int piece, int sq) {
+        long b = Bitboards.bit(sq);
+        pieceBoards[piece] |= b;
+        playerBoards[piece / 6] |= b;
+        occupied |= b;
+        squares[sq] = piece;
+        hash ^= Zobrist.piece(piece, sq);
+        midgameScore += Evaluation.MIDGAME[piece * 64 + sq];
+        endgameScore += Evaluation.ENDGAME[piece * 64 + sq];
+        phase += Evaluation.PHASE[piece];
+        if (accumulator != null) accumulator.add(piece, sq);
+    }
+
+    private void removePiece(int piece, int sq) {
+        long b = ~Bitboards.bit(sq);
+        pieceBoards[piece] &= b;
+        playerBoards[piece / 6] &= b;
+        occupied &= b;
+        squares[sq] = EMPTY;
+        hash ^= Zobrist.piece(piece, sq);
+        midgameScore -= Evaluation.MIDGAME[piece * 64 + sq];
+        endgameScore -= Evaluation.ENDGAME[piece * 64 + sq];
+        phase -= Evaluation.PHASE[piece];
+        if (accumulator != null) accumulator.remove(piece, sq);
+    }
+
+
+    //false, and the board left alone, unless it is a legal move of the player in turn
+    boolean movePiece(int fromCol, int fromRow, int toCol, int toRow)
+    {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+
+        int move = findMove(fromCol, fromRow, toCol, toRow);
+        if (move == Move.NONE) {
+            return false;
+        }
+
+        //restricted: only the player in turn can move
+        if(playerOf(squares[Move.from(move)]) != playerInTurn)
+        {
+            return false;
+        }
+
+        makeMove(move);
+        if (Metrics.ENABLED) Metrics.MOVE_APPLICATION.record(System.nanoTime() - start);
+        return true;
+    }
+
+
+
+    ChessPiece pieceAt(int col, int row)
+    {
+        if (!Bitboards.onBoard(col, row)) return null;
+
+        int sq = Bitboards.square(col, row);
+        int piece = squares[sq];
+        return piece == EMPTY ? null : PIECES[piece * 64 + sq];
+    }
+
+    Player getPlayerInTurn() {
+        return playerInTurn;
+    }
+
+    boolean isValidMove(int fromCol, int fromRow, int toCol, int toRow) {
+        if (!Metrics.ENABLED) return findMove(fromCol, fromRow, toCol, toRow) != Move.NONE;
+
+        long start = System.nanoTime();
+        boolean valid = findMove(fromCol, fromRow, toCol, toRow) != Move.NONE;
+        Metrics.MOVE_VALIDATION.record(System.nanoTime() - start);
+        return valid;
+    }
+
+    //the legal move between the two squares for the piece standing on from, or Move.NONE.
+    //A pawn reaching the last row becomes a queen.
+    int findMove(int fromCol, int fromRow, int toCol, int toRow) {
+        if (!Bitboards.onBoard(fromCol, fromRow) || !Bitboards.onBoard(toCol, toRow)) return Move.NONE;
+
+        int to = Bitboards.square(toCol, toRow);
+        generateMovesFrom(Bitboards.square(fromCol, fromRow), scratchMoves);
+        for (int i = 0; i < scratchMoves.size(); i++) {
+            int move = scratchMoves.get(i);
+            if (Move.to(move) == to) return move;
+        }
+        return Move.NONE;
+    }
+
+    //fills moves with every legal move of the player in turn, returns the count
+    public int generateLegalMoves(MoveList moves) {
+        //called at every node of a search, timing each call would cost more than the call
+        boolean timed = Metrics.ENABLED && ++generationCalls % Metrics.GENERATION_SAMPLE == 0;
+        long start = timed ? System.nanoTime() : 0;
+        moves.clear();
+        generate(playerInTurn.ordinal(), ~0L, false, moves);
+        if (timed) Metrics.MOVE_GENERATION.record(System.nanoTime() - start);
+        return moves.size();
+    }
+
+    //only the legal captures, for quiescence search
+    public int generateLegalCaptures(MoveList moves) {
+        moves.clear();
+        generate(playerInTurn.ordinal(), ~0L, true, moves);
+        return moves.size();
+    }
+
+    //legal moves of the player in turn, only for its pieces on fromMask
+    int generateLegalMoves(long fromMask, MoveList moves) {
+        moves.clear();
+        generate(playerInTurn.ordinal(), fromMask, false, moves);
+        return moves.size();
+    }
+
+    //fills moves with the legal moves of the piece on square (for whichever side owns it)
+    public int generateMovesFrom(int square, MoveList moves) {
+        moves.clear();
+        if (squares[square] != EMPTY) {
+            generate(squares[square] / 6, Bitboards.bit(square), false, moves);
+        }
+        return moves.size();
+    }
+
+    //legal moves of side for the pieces in fromMask. Uses the check and pin information
+    //of the position, so no move has to be tried on the board to see if it is legal.
+    private void generate(int side, long fromMask, boolean capturesOnly, MoveList moves) {
+        updateCheckInfo(side);
+
+        int base = side * 6;
+        int enemy = side ^ 1;
+        long enemies = playerBoards[enemy];
+        long targets = capturesOnly ? enemies : ~playerBoards[side];
+
+        long king = pieceBoards[base + KING] & fromMask;
+        if (king != 0) {
+            int from = Bitboards.first(king);
+            //the king must not hide behind itself from a slider
+            long occupancy = occupied ^ king;
+            long attacks = Attacks.KING[from] & targets;
+            while (attacks != 0) {
+                int to = Bitboards.first(attacks);
+                attacks &= attacks - 1;
+                if (attackersTo(to, enemy, occupancy) == 0) {
+                    addMove(from, to, enemies, moves);
+                }
+            }
+            //the rights are only kept while king and rook are home, so only the squares
+            //in between and the ones the king crosses need looking at
+            int rights = castlingRights >>> (side * 2);
+            if (!capturesOnly && checkers == 0 && (rights & 3) != 0) {
+                if ((rights & WHITE_KINGSIDE) != 0 && (occupied & CASTLING_PATH[side][0]) == 0
+                        && attackersTo(from + 1, enemy, occupied) == 0 && attackersTo(from + 2, enemy, occupied) == 0) {
+                    moves.add(Move.of(from, from + 2, Move.KING_CASTLE));
+                }
+                if ((rights & WHITE_QUEENSIDE) != 0 && (occupied & CASTLING_PATH[side][1]) == 0
+                        && attackersTo(from - 1, enemy, occupied) == 0 && attackersTo(from - 2, enemy, occupied) == 0) {
+                    moves.add(Move.of(from, from - 2, Move.QUEEN_CASTLE));
+                }
+            }
+        }
+
+        //in double check only the king can move
+        if (Long.bitCount(checkers) > 1) return;
+        if (checkers != 0) {
+            //capture the checker or step in between
+            targets &= checkers | Attacks.BETWEEN[kingSquare][Bitboards.first(checkers)];
+        }
+
+        //a pinned knight can never move
+        long knights = pieceBoards[base + KNIGHT] & fromMask & ~pinned;
+        while (knights != 0) {
+            int from = Bitboards.first(knights);
+            knights &= knights - 1;
+            addMoves(from, Attacks.KNIGHT[from] & targets, enemies, moves);
+        }
+
+        long diagonal = (pieceBoards[base + BISHOP] | pieceBoards[base + QUEEN]) & fromMask;
+        while (diagonal != 0) {
+            int from = Bitboards.first(diagonal);
+            diagonal &= diagonal - 1;
+            addMoves(from, Attacks.bishop(from, occupied) & targets & pinLine(from), enemies, moves);
+        }
+
+        long straight = (pieceBoards[base + ROOK] | pieceBoards[base + QUEEN]) & fromMask;
+        while (straight != 0) {
+            int from = Bitboards.first(straight);
+            straight &= straight - 1;
+            addMoves(from, Attacks.rook(from, occupied) & targets & pinLine(from), enemies, moves);
+        }
+
+        long pawns = pieceBoards[base + PAWN] & fromMask;
+        int forward = side == 0 ? 8 : -8;
+        long startRow = side == 0 ? Bitboards.RANK_1 << 8 : Bitboards.RANK_8 >>> 8;
+        //the en passant square is the side to move's
+        boolean enPassant = epSquare != NO_SQUARE && side == playerInTurn.ordinal();
+        while (pawns != 0) {
+            int from = Bitboards.first(pawns);
+            pawns &= pawns - 1;
+            long allowed = targets & pinLine(from);
+
+            long captures = Attacks.PAWN[side][from] & enemies & allowed;
+            while (captures != 0) {
+                addPawnMove(from, Bitboards.first(captures), Move.CAPTURE, moves);
+                captures &= captures - 1;
+            }
+            if (enPassant && (Attacks.PAWN[side][from] & Bitboards.bit(epSquare)) != 0 && enPassantIsLegal(from, enemy)) {
+                moves.add(Move.of(from, epSquare, Move.EN_PASSANT));
+            }
+
+            if (capturesOnly) continue;
+            int one = from + forward;
+            if (one < 0 || one > 63 || squares[one] != EMPTY) continue;
+            if ((allowed & Bitboards.bit(one)) != 0) {
+                addPawnMove(from, one, Move.QUIET, moves);
+            }
+
+            // Double move on first move
+            int two = one + forward;
+            if ((startRow & Bitboards.bit(from)) != 0 && squares[two] == EMPTY
+                    && (allowed & Bitboards.bit(two)) != 0) {
+                moves.add(Move.of(from, two, Move.DOUBLE_PUSH));
+            }
+        }
+    }
+
+    //a pawn move, or the four promotions, queen first, when it reaches the last row
+    private static void addPawnMove(int from, int to, int flags, MoveList moves) {
+        if (to >= 8 && to < 56) {
+            moves.add(Move.of(from, to, flags));
+            return;
+        }
+        for (int piece = Move.PROMOTE_QUEEN; piece >= Move.PROMOTE_KNIGHT; piece--) {
+            moves.add(Move.of(from, to, flags | Move.PROMOTION | piece));
+        }
+    }
+
+    //taking en passant empties two squares of a row at once, which neither the pins nor the
+    //check evasion targets account for, so the king is looked at with the board as it would be
+    private boolean enPassantIsLegal(int from, int enemy) {
+        long taken = Bitboards.bit(epSquare ^ 8);
+        long occupancy = occupied ^ Bitboards.bit(from) ^ Bitboards.bit(epSquare) ^ taken;
+        return (attackersTo(kingSquare, enemy, occupancy) & ~taken) == 0;
+    }
+
+    //squares a piece on from may move to without exposing its king
+    private long pinLine(int from) {
+        return (pinned & Bitboards.bit(from)) == 0 ? ~0L : Attacks.LINE[kingSquare][from];
+    }
+
+    private void addMoves(int from, long targets, long enemies, MoveList moves) {
+        while (targets != 0) {
+            addMove(from, Bitboards.first(targets), enemies, moves);
+            targets &= targets - 1;
+        }
+    }
+
+    private static void addMove(int from, int to, long enemies, MoveList moves) {
+        moves.add(Move.of(from, to, (enemies & Bitboards.bit(to)) != 0 ? Move.CAPTURE : Move.QUIET));
+    }
+
+    //computes the pieces checking side's king and the pieces of side pinned to it, unless
+    //they are already known for this position
+    private void updateCheckInfo(int side) {
+        if (checkInfoValid && checkInfoHash == hash && checkInfoSide == side) return;
+
+        checkInfoValid = true;
+        checkInfoHash = hash;
+        checkInfoSide = side;
+        checkers = 0L;
+        pinned = 0L;
+
+        long king = pieceBoards[side * 6 + KING];
+        if (king == 0) return;
+        kingSquare = Bitboards.first(king);
+
+        int enemy = side ^ 1;
+        checkers = attackersTo(kingSquare, enemy, occupied);
+
+        //enemy sliders that would attack the king through exactly one of our pieces
+        int enemyBase = enemy * 6;
+        long snipers = (Attacks.rook(kingSquare, 0L) & (pieceBoards[enemyBase + ROOK] | pieceBoards[enemyBase + QUEEN]))
+                | (Attacks.bishop(kingSquare, 0L) & (pieceBoards[enemyBase + BISHOP] | pieceBoards[enemyBase + QUEEN]));
+        while (snipers != 0) {
+            long blockers = Attacks.BETWEEN[kingSquare][Bitboards.first(snipers)] & occupied;
+            snipers &= snipers - 1;
+            if (Long.bitCount(blockers) == 1) {
+                pinned |= blockers & playerBoards[side];
+            }
+        }
+    }
+
+    //all pieces of side attacking square, with the given occupancy for the sliders
+    long attackersTo(int square, int side, long occupancy) {
+        int base = side * 6;
+        return (Attacks.PAWN[side ^ 1][square] & pieceBoards[base + PAWN])
+                | (Attacks.KNIGHT[square] & pieceBoards[base + KNIGHT])
+                | (Attacks.KING[square] & pieceBoards[base + KING])
+                | (Attacks.bishop(square, occupancy) & (pieceBoards[base + BISHOP] | pieceBoards[base + QUEEN]))
+                | (Attacks.rook(square, occupancy) & (pieceBoards[base + ROOK] | pieceBoards[base + QUEEN]));
+    }
+
+    //true if any piece of the opponent of player attacks (col,row)
+    public boolean isSquareAttacked(int col, int row, Player player) {
+        return attackersTo(Bitboards.square(col, row), 1 - player.ordinal(), occupied) != 0;
+    }
+
+
+
+
+    public boolean isKingSafeAfterMove(int fromCol, int fromRow, int toCol, int toRow) {
+        int from = Bitboards.square(fromCol, fromRow);
+        int to = Bitboards.square(toCol, toRow);
+        return isKingSafeAfterMove(Move.of(from, to, squares[to] == EMPTY ? Move.QUIET : Move.CAPTURE));
+    }
+
+    private boolean isKingSafeAfterMove(int move) {
+        Player mover = playerOf(squares[Move.from(move)]);
+
+        makeMove(move);
+        boolean isKingSafe = !isInCheck(mover);
+        unmakeMove();
+
+        return isKingSafe;
+    }
+
+    //plays a generated move in place and pushes what is needed to take it back
+    public void makeMove(int move) {
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        int piece = squares[from];
+        //the pawn taken en passant stands behind the square moved to
+        int capturedSquare = flags == Move.EN_PASSANT ? to ^ 8 : to;
+        int captured = squares[capturedSquare];
+
+        pushUndo(move | ((long) (captured + 1) << 16));
+        clearEnPassant();
+
+        if (captured != EMPTY) {
+            removePiece(captured, capturedSquare);
+        }
+        shiftPiece(piece, from, to);
+        if (Move.isPromotion(move)) {
+            removePiece(piece, to);
+            addPiece(piece - PAWN + Move.promotionRank(move), to);
+        } else if (flags == Move.KING_CASTLE) {
+            shiftPiece(piece + ROOK, to + 1, to - 1);
+        } else if (flags == Move.QUEEN_CASTLE) {
+            shiftPiece(piece + ROOK, to - 2, to + 1);
+        }
+
+        int rights = castlingRights & CASTLING_KEPT[from] & CASTLING_KEPT[to];
+        if (rights != castlingRights) {
+            hash ^= Zobrist.CASTLING[castlingRights] ^ Zobrist.CASTLING[rights];
+            castlingRights = rights;
+        }
+        halfmoveClock = captured != EMPTY || piece % 6 == PAWN ? 0 : halfmoveClock + 1;
+
+        playerInTurn = playerInTurn == Player.WHITE ? Player.BLACK : Player.WHITE;
+        hash ^= Zobrist.BLACK_TO_MOVE;
+        if (flags == Move.DOUBLE_PUSH && canTakeEnPassant((from + to) >>> 1)) {
+            epSquare = (from + to) >>> 1;
+            hash ^= Zobrist.EN_PASSANT[Bitboards.col(epSquare)];
+        }
+    }
+
+    //takes back the last makeMove
+    public void unmakeMove() {
+        long undo = undoStack[--undoCount];
+        int move = (int) (undo & 0xFFFF);
+        int captured = (int) ((undo >>> 16) & 15) - 1;
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int flags = Move.flags(move);
+        int piece = squares[to];
+
+        if (Move.isPromotion(move)) {
+            removePiece(piece, to);
+            piece = piece - Move.promotionRank(move) + PAWN;
+            addPiece(piece, to);
+        } else if (flags == Move.KING_CASTLE) {
+            shiftPiece(piece + ROOK, to - 1, to + 1);
+        } else if (flags == Move.QUEEN_CASTLE) {
+            shiftPiece(piece + ROOK, to + 1, to - 2);
+        }
+        shiftPiece(piece, to, from);
+        if (captured != EMPTY) {
+            addPiece(captured, flags == Move.EN_PASSANT ? to ^ 8 : to);
+        }
+
+        restoreState(undo);
+        playerInTurn = playerInTurn == Player.WHITE ? Player.BLACK : Player.WHITE;
+        hash = hashStack[undoCount];
+    }
+
+    //saves the hash and the state makeMove changes along with the move's part of the record
+    private void pushUndo(long record) {
+        if (undoCount == undoStack.length) {
+            undoStack = Arrays.copyOf(undoStack, undoCount * 2);
+            hashStack = Arrays.copyOf(hashStack, undoCount * 2);
+        }
+        hashStack[undoCount] = hash;
+        undoStack[undoCount++] = record | ((long) castlingRights << 20) | ((long) (epSquare + 1) << 24)
+                | ((long) halfmoveClock << 32);
+    }
+
+    private void restoreState(long undo) {
+        castlingRights = (int) ((undo >>> 20) & 15);
+        epSquare = (int) ((undo >>> 24) & 127) - 1;
+        halfmoveClock = (int) (undo >>> 32);
+    }
+
+    private void clearEnPassant() {
+        if (epSquare == NO_SQUARE) return;
+        hash ^= Zobrist.EN_PASSANT[Bitboards.col(epSquare)];
+        epSquare = NO_SQUARE;
+    }
+
+    public long getHash() {
+        return hash;
+    }
+
+    //hash of the position before the ply-th most recent move, 0 being the last one
+    long getHistoryHash(int ply) {
+        return hashStack[undoCount - 1 - ply];
+    }
+
+    //full recomputation of the zobrist key, to check the incremental one
+    long computeHash() {
+        long h = playerInTurn == Player.BLACK ? Zobrist.BLACK_TO_MOVE : 0L;
+        for (int piece = 0; piece < 12; piece++) {
+            long board = pieceBoards[piece];
+            while (board != 0) {
+                h ^= Zobrist.piece(piece, Bitboards.first(board));
+                board &= board - 1;
+            }
+        }
+        h ^= Zobrist.CASTLING[castlingRights];
+        if (epSquare != NO_SQUARE) h ^= Zobrist.EN_PASSANT[Bitboards.col(epSquare)];
+        return h;
+    }
+
+    //passes the turn without moving, for null-move pruning
+    public void makeNullMove() {
+        pushUndo(NULL_MOVE_UNDO);
+        clearEnPassant();
+        halfmoveClock++;
+
+        playerInTurn = playerInTurn == Player.WHITE ? Player.BLACK : Player.WHITE;
+        hash ^= Zobrist.BLACK_TO_MOVE;
+    }
+
+    public void unmakeNullMove() {
+        restoreState(undoStack[--undoCount]);
+        playerInTurn = playerInTurn == Player.WHITE ? Player.BLACK : Player.WHITE;
+        hash = hashStack[undoCount];
+    }
+
+    private static boolean isNullMove(long undo) {
+        return (undo & NULL_MOVE_UNDO) != 0;
+    }
+
+    //true if the current position already occurred with the same side to move, looking back
+    //no further than the last capture, pawn move or null move
+    public boolean isRepetition() {
+        int oldest = undoCount - halfmoveClock;
+        for (int i = undoCount - 2; i >= oldest && i >= 0; i -= 2) {
+            if (isNullMove(undoStack[i + 1]) || isNullMove(undoStack[i])) return false;
+            if (hashStack[i] == hash) return true;
+        }
+        return false;
+    }
+
+    //how often the current position occurred before, since the last capture or pawn move
+    int repetitions() {
+        int count = 0;
+        int oldest = undoCount - halfmoveClock;
+        for (int i = undoCount - 2; i >= oldest && i >= 0; i -= 2) {
+            if (hashStack[i] == hash) count++;
+        }
+        return count;
+    }
+
+    //ONGOING, or how the game has ended with the position on the board. Meant to be asked
+    //after every move: the clock is a field, the repetition scan stops at the last capture or
+    //pawn move, and the hunt for a legal move stops at the king's when it has one.
+    public int gameState() {
+        if (!hasLegalMove()) return isInCheck(playerInTurn) ? CHECKMATE : STALEMATE;
+        if (halfmoveClock >= FIFTY_MOVE_PLIES) return FIFTY_MOVES;
+        if (repetitions() >= 2) return REPETITION;
+        return ONGOING;
+    }
+
+    private boolean hasLegalMove() {
+        int side = playerInTurn.ordinal();
+        long king = pieceBoards[side * 6 + KING];
+        scratchMoves.clear();
+        generate(side, king, false, scratchMoves);
+        if (scratchMoves.size() > 0) return true;
+        generate(side, ~king, false, scratchMoves);
+        return scratchMoves.size() > 0;
+    }
+
+    //makes this model an exact copy of other, including its move history
+    public void copyFrom(ChessModel other) {
+        System.arraycopy(other.pieceBoards, 0, pieceBoards, 0, pieceBoards.length);
+        System.arraycopy(other.playerBoards, 0, playerBoards, 0, playerBoards.length);
+        System.arraycopy(other.squares, 0, squares, 0, squares.length);
+        occupied = other.occupied;
+        playerInTurn = other.playerInTurn;
+        hash = other.hash;
+        castlingRights = other.castlingRights;
+        epSquare = other.epSquare;
+        halfmoveClock = other.halfmoveClock;
+        midgameScore = other.midgameScore;
+        endgameScore = other.endgameScore;
+        phase = other.phase;
+        if (accumulator != null) accumulator.refresh(this);
+        checkInfoValid = false;
+
+        if (undoStack.length < other.undoStack.length) {
+            undoStack = new long[other.undoStack.length];
+            hashStack = new long[other.undoStack.length];
+        }
+        undoCount = other.undoCount;
+        startPly = other.startPly;
+        System.arraycopy(other.undoStack, 0, undoStack, 0, undoCount);
+        System.arraycopy(other.hashStack, 0, hashStack, 0, undoCount);
+    }
+
+    int pieceCodeAt(int square) {
+        return squares[square];
+    }
+
+    long getPieceBoard(int piece) {
+        return pieceBoards[piece];
+    }
+
+    long getPlayerBoard(Player player) {
+        return playerBoards[player.ordinal()];
+    }
+
+    //number of moves that can be taken back
+    int getUndoCount() {
+        return undoCount;
+    }
+
+    //plies since the start of the game, counting those before a FEN position was loaded
+    int getPly() {
+        return startPly + undoCount;
+    }
+
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    //NO_SQUARE unless the side to move can take en passant
+    public int getEnPassantSquare() {
+        return epSquare;
+    }
+
+    public int getHalfmoveClock() {
+        return halfmoveClock;
+    }
+
+    //sum of Evaluation.MIDGAME over the pieces on the board, white's point of view
+    int getMidgameScore() {
+        return midgameScore;
+    }
+
+    int getEndgameScore() {
+        return endgameScore;
+    }
+
+    //Evaluation.PHASE of the pieces on the board
+    int getPhase() {
+        return phase;
+    }
+
+    //has every board change update accumulator, counted from the pieces now; null to stop.
+    //Not shared, each model needs its own.
+    public void setAccumulator(NnueAccumulator accumulator) {
+        this.accumulator = accumulator;
+        if (accumulator != null) accumulator.refresh(this);
+    }
+
+    public NnueAccumulator getAccumulator() {
+        return accumulator;
+    }
+
+    private void shiftPiece(int piece, int from, int to) {
+        long fromTo = Bitboards.bit(from) | Bitboards.bit(to);
+        pieceBoards[piece] ^= fromTo;
+        playerBoards[piece / 6] ^= fromTo;
+        occupied ^= fromTo;
+        squares[from] = EMPTY;
+        squares[to] = piece;
+        hash ^= Zobrist.piece(piece, from) ^ Zobrist.piece(piece, to);
+        midgameScore += Evaluation.MIDGAME[piece * 64 + to] - Evaluation.MIDGAME[piece * 64 + from];
+        endgameScore += Evaluation.ENDGAME[piece * 64 + to] - Evaluation.ENDGAME[piece * 64 + from];
+        if (accumulator != null) accumulator.move(piece, from, to);
+    }
+
+
+
+
+
+    public boolean isInCheck(Player player) {
+        updateCheckInfo(player.ordinal());
+        return checkers != 0;
+    }
+
+    @Override
+    public String toString() {
+        //white is lowercase here, the other way round from FEN
+        StringBuilder description = new StringBuilder(8 * 18 + 17);
+
+        for (int row = 7; row >= 0; row--) {
+            description.append(row);  //7 -> "7"
+            for (int col = 0; col < 8; col++) {
+                int piece = squares[row * 8 + col];
+                description.append(' ').append(piece == EMPTY ? '.' : BOARD_PIECES.charAt(piece));
+            }
+            description.append('\n');
+        }
+
+        description.append("  0 1 2 3 4 5 6 7");
+
+        return description.toString();
+    }
+}
@@ -0,0 +1,730 @@
+package org.example;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.net.StandardSocketOptions;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+//headless server for many games at once. One selector thread accepts connections,
+//pairs them in the order they say HELLO (first white, second black) and owns one
+//authoritative ChessModel per game, so every move is checked before it is passed on.
+//Speaks the binary Protocol; each connection has one fixed read and one fixed write buffer.
+//A player whose connection drops keeps the seat for a while and can take it back with RESUME
+//and the token it got in START. It is sent the position as one SNAPSHOT, the game's model is
+//its log of moves. A player that lost track of the position sends RESUME on the connection it
+//plays on and gets the SNAPSHOT the same way. Nothing there blocks, so a reconnect doesn't hold up the other games.
+//Spectators WATCH a game. Each move is encoded once into a read-only Frame that every watcher
+//queues and is written from, after the players have been served. A watcher whose queue fills
+//up gets a SNAPSHOT instead once it has caught up, and is dropped if it doesn't.
+//With a MoveJournal every game is logged as it goes; a restarted server replays the games that
+//were going into their models and keeps both seats for the players to RESUME.
+public class GameServer implements Runnable {
+
+    public static final int DEFAULT_PORT = 50000;
+
+    //room for plenty of queued frames; a client that lets this fill up is dropped
+    private static final int WRITE_BUFFER_SIZE = 4096;
+    private static final long REPORT_INTERVAL_MILLIS = 5000;
+    //how long a dropped player's seat is kept before the opponent is told it left
+    static final long RESUME_GRACE_MILLIS = 30_000;
+    //frames a watcher may have waiting before it is moved to a snapshot
+    static final int WATCHER_QUEUE_LIMIT = 64;
+    //small, so a watcher that doesn't keep up shows in its queue rather than in kernel memory
+    private static final int WATCHER_SEND_BUFFER = 16 * 1024;
+    //a watcher that hasn't caught up after this long is dropped
+    private static final long STALE_WATCHER_NANOS = 10_000_000_000L;
+
+    private final int port;
+    private final long resumeGraceMillis;
+    //null for none
+    private final MoveJournal journal;
+    private Selector selector;
+    private ServerSocketChannel serverChannel;
+    private Thread thread;
+    private volatile boolean running;
+
+    //connected player waiting for an opponent
+    private Connection waiting;
+    private int nextGameId = 1;
+    private final Map<Integer, Game> games = new HashMap<>();
+    //games with an empty seat, oldest first since every seat gets the same grace period
+    private final ArrayDeque<Vacancy> vacancies = new ArrayDeque<>();
+    private final SecureRandom tokens = new SecureRandom();
+    //only touched by the selector thread
+    private final Protocol.Message message = new Protocol.Message();
+    private final StringBuilder fen = new StringBuilder(ChessModel.MAX_FEN_LENGTH);
+
+    private final AtomicLong openConnections = new AtomicLong();
+    private final AtomicLong activeGames = new AtomicLong();
+    private final AtomicLong totalMoves = new AtomicLong();
+    private final AtomicLong openWatchers = new AtomicLong();
+    //from encoding a frame for watchers to the last byte of it reaching a watcher's socket
+    private final LatencyHistogram broadcastLatency = new LatencyHistogram();
+
+    public GameServer(int port) {
+        this(port, RESUME_GRACE_MILLIS, null);
+    }
+
+    public GameServer(int port, MoveJournal journal) {
+        this(port, RESUME_GRACE_MILLIS, journal);
+    }
+
+    GameServer(int port, long resumeGraceMillis) {
+        this(port, resumeGraceMillis, null);
+    }
+
+    GameServer(int port, long resumeGraceMillis, MoveJournal journal) {
+        this.port = port;
+        this.resumeGraceMillis = resumeGraceMillis;
+        this.journal = journal;
+    }
+
+    //binds the port and starts the selector thread
+    public void start() throws IOException {
+        if (journal != null) restoreGames();
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.configureBlocking(false);
+        serverChannel.bind(new InetSocketAddress(port), 1024);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+
+        running = true;
+        thread = new Thread(this, "game-server");
+        thread.start();
+    }
+
+    public void stop() {
+        running = false;
+        if (selector != null) selector.wakeup();
+    }
+
+    public void awaitStop() throws InterruptedException {
+        if (thread != null) thread.join();
+    }
+
+    public int getLocalPort() throws IOException {
+        return ((InetSocketAddress) serverChannel.getLocalAddress()).getPort();
+    }
+
+    public long getOpenConnections() {
+        return openConnections.get();
+    }
+
+    public long getActiveGames() {
+        return activeGames.get();
+    }
+
+    public long getTotalMoves() {
+        return totalMoves.get();
+    }
+
+    public long getWatchers() {
+        return openWatchers.get();
+    }
+
+    //since the last report
+    LatencyHistogram getBroadcastLatency() {
+        return broadcastLatency;
+    }
+
+    @Override
+    public void run() {
+        long nextReport = System.currentTimeMillis() + REPORT_INTERVAL_MILLIS;
+        long movesAtLastReport = 0;
+
+        try {
+            while (running) {
+                selector.select(1000);
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (!key.isValid()) continue;
+                        if (key.isAcceptable()) accept();
+                        if (key.isValid() && key.isReadable()) read((Connection) key.attachment());
+                        if (key.isValid() && key.isWritable()) flush((Connection) key.attachment());
+                    } catch (IOException ex) {
+                        disconnect((Connection) key.attachment());
+                    }
+                }
+
+                long now = System.currentTimeMillis();
+                expireSeats(now);
+                if (now >= nextReport) {
+                    long moves = totalMoves.get();
+                    System.out.println("connections " + openConnections.get() + "  games " + activeGames.get()
+                            + "  moves/sec " + (moves - movesAtLastReport) * 1000 / (now - nextReport + REPORT_INTERVAL_MILLIS)
+                            + (broadcastLatency.getCount() == 0 ? ""
+                            : "  watchers " + openWatchers.get() + "  broadcast us " + broadcastLatency.toMicrosString()));
+                    broadcastLatency.reset();
+                    movesAtLastReport = moves;
+                    nextReport = now + REPORT_INTERVAL_MILLIS;
+                }
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                try {
+                    key.channel().close();
+                } catch (IOException ex) {
+                    ex.printStackTrace();
+                }
+            }
+            try {
+                selector.close();
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+        }
+    }
+
+    //the games the journal had open, every move checked again, with both seats empty
+    private void restoreGames() {
+        long now = System.currentTimeMillis();
+        for (MoveJournal.OpenGame open : journal.getOpenGames()) {
+            Game game = new Game(open.getId(), open.getWhiteToken(), open.getBlackToken());
+            ChessModel chessModel = game.chessModel;
+            for (int ply = 0; ply < open.getMoveCount(); ply++) {
+                int move = Protocol.findLegalMove(chessModel, open.getMove(ply), game.moves);
+                if (move != Move.NONE) chessModel.makeMove(move);
+                if (move == Move.NONE || chessModel.getHash() != open.getHash(ply)) {
+                    //can't happen with an intact journal, play on from the last good position
+                    if (move != Move.NONE) chessModel.unmakeMove();
+                    System.out.println("journal of game " + game.id + " doesn't replay after move " + ply);
+                    break;
+                }
+            }
+            games.put(game.id, game);
+            activeGames.incrementAndGet();
+            nextGameId = Math.max(nextGameId, game.id + 1);
+            game.vacantSince = now;
+            vacancies.add(new Vacancy(game, now));
+        }
+        if (!games.isEmpty()) System.out.println("restored " + games.size() + " games from the journal");
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = serverChannel.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Connection connection = new Connection(channel);
+            connection.key = channel.register(selector, SelectionKey.OP_READ, connection);
+            openConnections.incrementAndGet();
+        }
+    }
+
+    private void read(Connection connection) throws IOException {
+        ByteBuffer in = connection.in;
+        if (connection.channel.read(in) < 0) {
+            disconnect(connection);
+            return;
+        }
+
+        in.flip();
+        try {
+            while (Protocol.decode(in, message)) {
+                handle(connection, message);
+                if (!connection.channel.isOpen()) return;
+            }
+        } catch (ProtocolException ex) {
+            send(connection, Protocol.error(connection.out, gameId(connection), 0, Protocol.BAD_MESSAGE));
+            disconnect(connection);
+            return;
+        }
+        in.compact();
+    }
+
+    private void handle(Connection connection, Protocol.Message message) throws IOException {
+        switch (message.type) {
+            case Protocol.HELLO:
+                if (connection.greeted) {
+                    send(connection, Protocol.error(connection.out, gameId(connection), 0, Protocol.BAD_MESSAGE));
+                } else if (message.code != Protocol.VERSION) {
+                    send(connection, Protocol.error(connection.out, 0, 0, Protocol.BAD_VERSION));
+                    disconnect(connection);
+                } else {
+                    connection.greeted = true;
+                    if (waiting == null) {
+                        waiting = connection;
+                    } else {
+                        startGame(waiting, connection);
+                        waiting = null;
+                    }
+                }
+                break;
+            case Protocol.RESUME:
+                handleResume(connection, message);
+                break;
+            case Protocol.MOVE:
+                long start = Metrics.ENABLED ? System.nanoTime() : 0;
+                handleMove(connection, message);
+                if (Metrics.ENABLED) Metrics.SERVER_MOVES.record(System.nanoTime() - start);
+                break;
+            case Protocol.WATCH:
+                handleWatch(connection, message);
+                break;
+            case Protocol.LEAVE:
+                if (connection.game != null && message.gameId == connection.game.id) {
+                    Game game = connection.game;
+                    endGame(game, Protocol.OPPONENT_LEFT);
+                    Connection opponent = connection.player == Player.WHITE ? game.black : game.white;
+                    if (opponent != null) {
+                        send(opponent, Protocol.gameOver(opponent.out, game.id, Protocol.OPPONENT_LEFT));
+                        close(opponent);
+                    }
+                }
+                disconnect(connection);
+                break;
+            default:
+                send(connection, Protocol.error(connection.out, gameId(connection), 0, Protocol.BAD_MESSAGE));
+        }
+    }
+
+    private void startGame(Connection white, Connection black) throws IOException {
+        Game game = new Game(nextGameId++, tokens.nextLong(), tokens.nextLong());
+        game.white = white;
+        white.game = game;
+        white.player = Player.WHITE;
+        game.black = black;
+        black.game = game;
+        black.player = Player.BLACK;
+        games.put(game.id, game);
+        activeGames.incrementAndGet();
+        if (journal != null) journal.start(game.id, game.whiteToken, game.blackToken);
+
+        send(white, Protocol.start(white.out, game.id, Player.WHITE, game.whiteToken));
+        send(black, Protocol.start(black.out, game.id, Player.BLACK, game.blackToken));
+    }
+
+    private void handleResume(Connection connection, Protocol.Message message) throws IOException {
+        if (connection.greeted) {
+            Game game = connection.game;
+            long token = game == null ? 0 : connection.player == Player.WHITE ? game.whiteToken : game.blackToken;
+            if (game != null && message.gameId == game.id && message.token == token) {
+                sendSnapshot(connection, game);
+            } else {
+                send(connection, Protocol.error(connection.out, gameId(connection), 0, Protocol.BAD_MESSAGE));
+            }
+            return;
+        }
+        if (message.code != Protocol.VERSION) {
+            send(connection, Protocol.error(connection.out, 0, 0, Protocol.BAD_VERSION));
+            disconnect(connection);
+            return;
+        }
+        Game game = games.get(message.gameId);
+        Player player = game == null ? null
+                : message.token == game.whiteToken ? Player.WHITE
+                : message.token == game.blackToken ? Player.BLACK : null;
+        if (player == null) {
+            send(connection, Protocol.error(connection.out, message.gameId, 0, Protocol.UNKNOWN_GAME));
+            disconnect(connection);
+            return;
+        }
+
+        //the client gave up on its old connection, even if we haven't noticed it is gone yet
+        Connection old = player == Player.WHITE ? game.white : game.black;
+        if (old != null) {
+            old.game = null;
+            close(old);
+        }
+        if (player == Player.WHITE) {
+            game.white = connection;
+        } else {
+            game.black = connection;
+        }
+        connection.greeted = true;
+        connection.game = game;
+        connection.player = player;
+        sendSnapshot(connection, game);
+    }
+
+    private void sendSnapshot(Connection connection, Game game) throws IOException {
+        ChessModel chessModel = game.chessModel;
+        fen.setLength(0);
+        chessModel.appendFen(fen);
+        send(connection, Protocol.snapshot(connection.out, game.id, connection.player.ordinal(), chessModel.getHash(), fen));
+    }
+
+    private void handleWatch(Connection connection, Protocol.Message message) throws IOException {
+        if (connection.greeted) {
+            send(connection, Protocol.error(connection.out, gameId(connection), 0, Protocol.BAD_MESSAGE));
+            return;
+        }
+        if (message.code != Protocol.VERSION) {
+            send(connection, Protocol.error(connection.out, 0, 0, Protocol.BAD_VERSION));
+            disconnect(connection);
+            return;
+        }
+        Game game = games.get(message.gameId);
+        if (game == null) {
+            send(connection, Protocol.error(connection.out, message.gameId, 0, Protocol.UNKNOWN_GAME));
+            disconnect(connection);
+            return;
+        }
+
+        connection.greeted = true;
+        connection.watching = game;
+        connection.frames = new ArrayDeque<>();
+        connection.channel.setOption(StandardSocketOptions.SO_SNDBUF, WATCHER_SEND_BUFFER);
+        game.watchers.add(connection);
+        openWatchers.incrementAndGet();
+        connection.frames.add(snapshotFrame(game));
+        flush(connection);
+    }
+
+    //the current position for watchers, encoded once per ply however many ask for it
+    private Frame snapshotFrame(Game game) {
+        if (game.snapshot == null) {
+            fen.setLength(0);
+            game.chessModel.appendFen(fen);
+            ByteBuffer data = ByteBuffer.allocate(Protocol.MAX_FRAME_SIZE);
+            Protocol.snapshot(data, game.id, Protocol.SPECTATOR, game.chessModel.getHash(), fen);
+            //not a broadcast, it can be kept for a long time before it is sent
+            game.snapshot = new Frame(data, 0);
+        }
+        return game.snapshot;
+    }
+
+    //queues frame for every watcher of game, writing straight away to those with nothing queued
+    private void broadcast(Game game, Frame frame) {
+        long now = System.nanoTime();
+        List<Connection> watchers = game.watchers;
+        //backwards, a watcher that is dropped takes itself out of the list
+        for (int i = watchers.size() - 1; i >= 0; i--) {
+            Connection watcher = watchers.get(i);
+            if (watcher.stale) {
+                if (now - watcher.staleSince > STALE_WATCHER_NANOS) disconnect(watcher);
+                continue;
+            }
+            if (watcher.frames.size() >= WATCHER_QUEUE_LIMIT) {
+                //what it has queued is of no use once it is to get a snapshot, except
+                //a frame it has had part of
+                Frame partial = watcher.frameOffset > 0 ? watcher.frames.peek() : null;
+                watcher.frames.clear();
+                if (partial != null) watcher.frames.add(partial);
+                watcher.stale = true;
+                watcher.staleSince = now;
+                continue;
+            }
+            watcher.frames.add(frame);
+            if (watcher.frames.size() == 1) {
+                try {
+                    flush(watcher);
+                } catch (IOException ex) {
+                    disconnect(watcher);
+                }
+            }
+        }
+    }
+
+    private void handleMove(Connection connection, Protocol.Message message) throws IOException {
+        Game game = connection.game;
+        int sequence = message.sequence;
+        if (game == null || message.gameId != game.id
+                || game.chessModel.getPlayerInTurn() != connection.player) {
+            send(connection, Protocol.error(connection.out, message.gameId, sequence, Protocol.NOT_YOUR_TURN));
+            return;
+        }
+        ChessModel chessModel = game.chessModel;
+        if (sequence != chessModel.getPly()) {
+            send(connection, Protocol.error(connection.out, game.id, sequence, Protocol.OUT_OF_SEQUENCE));
+            return;
+        }
+
+        int move = Protocol.findLegalMove(chessModel, message.move, game.moves);
+        if (move == Move.NONE || ChessModel.playerOf(chessModel.pieceCodeAt(Move.from(move))) != connection.player) {
+            send(connection, Protocol.error(connection.out, game.id, sequence, Protocol.ILLEGAL_MOVE));
+            return;
+        }
+
+        chessModel.makeMove(move);
+        //the client's board doesn't match ours, refuse rather than play on different positions
+        if (chessModel.getHash() != message.hash) {
+            chessModel.unmakeMove();
+            send(connection, Protocol.error(connection.out, game.id, sequence, Protocol.DESYNC));
+            return;
+        }
+        totalMoves.incrementAndGet();
+        game.snapshot = null;
+        if (journal != null) journal.move(game.id, sequence, move, message.hash);
+
+        //an opponent who is away gets the move with the SNAPSHOT when it comes back
+        Connection opponent = connection.player == Player.WHITE ? game.black : game.white;
+        send(connection, Protocol.ack(connection.out, game.id, sequence));
+        if (opponent != null) send(opponent, Protocol.move(opponent.out, game.id, sequence, move, message.hash));
+        if (!game.watchers.isEmpty()) {
+            ByteBuffer data = ByteBuffer.allocate(Protocol.MAX_FRAME_SIZE);
+            Protocol.move(data, game.id, sequence, move, message.hash);
+            broadcast(game, new Frame(data, System.nanoTime()));
+        }
+
+        int state = game.over ? ChessModel.ONGOING : chessModel.gameState();
+        if (state != ChessModel.ONGOING) {
+            int reason = gameOverReason(state);
+            endGame(game, reason);
+            for (Connection player : new Connection[]{game.white, game.black}) {
+                if (player == null) continue;
+                send(player, Protocol.gameOver(player.out, game.id, reason));
+                close(player);
+            }
+        }
+    }
+
+    //mate and stalemate are told apart on the board
+    private static int gameOverReason(int state) {
+        switch (state) {
+            case ChessModel.FIFTY_MOVES:
+                return Protocol.FIFTY_MOVES;
+            case ChessModel.REPETITION:
+                return Protocol.REPETITION;
+            default:
+                return Protocol.NO_LEGAL_MOVES;
+        }
+    }
+
+    private static int gameId(Connection connection) {
+        return connection.game == null ? 0 : connection.game.id;
+    }
+
+    //called with whether the frame fit the write buffer; a client that doesn't read is dropped
+    private void send(Connection connection, boolean encoded) throws IOException {
+        if (!connection.channel.isOpen()) return;
+        if (!encoded) {
+            disconnect(connection);
+            return;
+        }
+        flush(connection);
+    }
+
+    //writes what the socket takes now, the rest waits for OP_WRITE. A watcher's
+    //frames go after anything in its own buffer.
+    private void flush(Connection connection) throws IOException {
+        ByteBuffer out = connection.out;
+        out.flip();
+        connection.channel.write(out);
+        out.compact();
+        boolean pending = out.position() > 0;
+        if (!pending && connection.frames != null) pending = !writeFrames(connection);
+        if (connection.key.isValid()) {
+            connection.key.interestOps(pending ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+        }
+    }
+
+    //returns whether everything was written. The frames are shared, so only their
+    //position is set for the write, the bytes are never copied.
+    private boolean writeFrames(Connection watcher) throws IOException {
+        ArrayDeque<Frame> frames = watcher.frames;
+        while (true) {
+            if (frames.isEmpty() && watcher.stale && watcher.watching != null) {
+                //caught up at last, the position replaces the moves it missed
+                watcher.stale = false;
+                frames.add(snapshotFrame(watcher.watching));
+            }
+            Frame frame = frames.peek();
+            if (frame == null) break;
+
+            ByteBuffer data = frame.data;
+            data.position(watcher.frameOffset);
+            watcher.channel.write(data);
+            watcher.frameOffset = data.position();
+            if (data.hasRemaining()) return false;
+            frames.poll();
+            watcher.frameOffset = 0;
+            if (frame.encodedNanos != 0) broadcastLatency.record(System.nanoTime() - frame.encodedNanos);
+        }
+        return true;
+    }
+
+    //detaches both players, leaving the connections to the caller, and sends the watchers
+    //reason if they can take it now before closing them
+    private void endGame(Game game, int reason) {
+        if (game.over) return;
+        game.over = true;
+        games.remove(game.id);
+        activeGames.decrementAndGet();
+        if (journal != null) journal.end(game.id);
+        if (game.white != null) game.white.game = null;
+        if (game.black != null) game.black.game = null;
+
+        if (game.watchers.isEmpty()) return;
+        ByteBuffer data = ByteBuffer.allocate(Protocol.MAX_FRAME_SIZE);
+        Protocol.gameOver(data, game.id, reason);
+        Frame frame = new Frame(data, System.nanoTime());
+        for (Connection watcher : game.watchers) {
+            watcher.watching = null;
+            watcher.stale = false;
+            openWatchers.decrementAndGet();
+            watcher.frames.add(frame);
+            try {
+                flush(watcher);
+            } catch (IOException ex) {
+                //closed below
+            }
+            //with no game left there is nothing to drop a watcher that doesn't catch up later
+            close(watcher);
+        }
+        game.watchers.clear();
+    }
+
+    //keeps the seat of a player in a game open for RESUME
+    private void disconnect(Connection connection) {
+        if (connection == null || !connection.channel.isOpen()) return;
+        if (waiting == connection) waiting = null;
+        close(connection);
+        if (connection.watching != null) {
+            connection.watching.watchers.remove(connection);
+            connection.watching = null;
+            openWatchers.decrementAndGet();
+        }
+
+        Game game = connection.game;
+        if (game != null) {
+            connection.game = null;
+            if (connection.player == Player.WHITE) {
+                game.white = null;
+            } else {
+                game.black = null;
+            }
+            game.vacantSince = System.currentTimeMillis();
+            vacancies.add(new Vacancy(game, game.vacantSince));
+        }
+    }
+
+    //ends the games whose seats have been empty for the whole grace period
+    private void expireSeats(long now) {
+        while (!vacancies.isEmpty() && vacancies.peek().since + resumeGraceMillis <= now) {
+            Vacancy vacancy = vacancies.poll();
+            Game game = vacancy.game;
+            //taken back since, or left again later and queued with that time
+            if (game.over || game.vacantSince != vacancy.since || (game.white != null && game.black != null)) continue;
+
+            endGame(game, Protocol.OPPONENT_LEFT);
+            Connection opponent = game.white != null ? game.white : game.black;
+            if (opponent != null) {
+                try {
+                    send(opponent, Protocol.gameOver(opponent.out, game.id, Protocol.OPPONENT_LEFT));
+                } catch (IOException ex) {
+                    //the opponent is being closed anyway
+                }
+                close(opponent);
+            }
+        }
+    }
+
+    private void close(Connection connection) {
+        if (!connection.channel.isOpen()) return;
+        openConnections.decrementAndGet();
+        connection.key.cancel();
+        try {
+            connection.channel.close();
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    static class Connection {
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocate(Protocol.MAX_FRAME_SIZE * 4);
+        //kept in write mode between flushes
+        final ByteBuffer out = ByteBuffer.allocate(WRITE_BUFFER_SIZE);
+        SelectionKey key;
+        boolean greeted;
+        Game game;
+        Player player;
+        //for a spectator, the game and the shared frames it is still to get
+        Game watching;
+        ArrayDeque<Frame> frames;
+        //bytes of the first frame already written
+        int frameOffset;
+        //fell behind, nothing is queued until it has caught up and had a snapshot
+        boolean stale;
+        long staleSince;
+
+        Connection(SocketChannel channel) {
+            this.channel = channel;
+        }
+    }
+
+    static class Game {
+        final int id;
+        final long whiteToken;
+        final long blackToken;
+        final ChessModel chessModel = new ChessModel();
+        final MoveList moves = new MoveList();
+        //null while that player is away
+        Connection white;
+        Connection black;
+        boolean over;
+        //when a seat was last left
+        long vacantSince;
+        final List<Connection> watchers = new ArrayList<>();
+        //SNAPSHOT of the current position for watchers, null until one asks after a move
+        Frame snapshot;
+
+        Game(int id, long whiteToken, long blackToken) {
+            this.id = id;
+            this.whiteToken = whiteToken;
+            this.blackToken = blackToken;
+            chessModel.reset();
+        }
+    }
+
+    //one encoded frame for many watchers. Only its position changes, on the selector thread.
+    private static class Frame {
+        final ByteBuffer data;
+        //0 if it isn't timed
+        final long encodedNanos;
+
+        //takes data in write mode
+        Frame(ByteBuffer data, long encodedNanos) {
+            this.data = data.flip().asReadOnlyBuffer();
+            this.encodedNanos = encodedNanos;
+        }
+    }
+
+    private static class Vacancy {
+        final Game game;
+        final long since;
+
+        Vacancy(Game game, long since) {
+            this.game = game;
+            this.since = since;
+        }
+    }
+
+    // usage: GameServer [port] [journal directory]
+    //-Dchess.journal.flush=OS|GROUP|EVERY_MOVE picks how the journal is forced to disk, GROUP by default
+    public static void main(String[] args) throws Exception {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        Metrics.start();
+        MoveJournal journal = null;
+        if (args.length > 1) {
+            journal = MoveJournal.open(Path.of(args[1]),
+                    MoveJournal.Flush.valueOf(System.getProperty("chess.journal.flush", "GROUP")));
+            Runtime.getRuntime().addShutdownHook(new Thread(journal::close));
+        }
+        GameServer server = new GameServer(port, journal);
+        server.start();
+        System.out.println("Game server is listening on port " + server.getLocalPort());
+        server.awaitStop();
+    }
+}
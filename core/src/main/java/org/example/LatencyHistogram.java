@@ -0,0 +1,123 @@
+package org.example;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+//counts of durations in log-linear buckets: every power of two is split in SUB_BUCKETS equal
+//parts, so a percentile is off by at most 1/SUB_BUCKETS of its value whatever the range.
+//Fixed size and lock-free, any number of threads may record. Reads while others record see
+//each bucket up to date but not all of them at the same instant, which is fine for reporting.
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray((64 - SUB_BITS + 1) * SUB_BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts.incrementAndGet(bucket(value));
+        //most values aren't a new maximum, those don't write
+        long m = max.get();
+        while (value > m && !max.compareAndSet(m, value)) {
+            m = max.get();
+        }
+    }
+
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    public long getMax() {
+        return max.get();
+    }
+
+    //smallest value at or below which percentile (0-100) of the values are, to bucket precision
+    public long valueAtPercentile(double percentile) {
+        long count = getCount();
+        if (count == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) return Math.min(highestValue(i), getMax());
+        }
+        return getMax();
+    }
+
+    //values recorded meanwhile may be lost or kept
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) {
+            counts.set(i, 0);
+        }
+        max.set(0);
+    }
+
+    //values below SUB_BUCKETS have a bucket each, above that the top SUB_BITS + 1 bits pick it
+    static int bucket(long value) {
+        if (value < SUB_BUCKETS) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    static long highestValue(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    //count and percentiles in microseconds, for JMX
+    public Summary summary() {
+        return new Summary(getCount(), valueAtPercentile(50) / 1000, valueAtPercentile(99) / 1000,
+                valueAtPercentile(99.9) / 1000, getMax() / 1000);
+    }
+
+    //"p50 12 p99 40 p99.9 95 max 210" in microseconds
+    public String toMicrosString() {
+        Summary summary = summary();
+        return "p50 " + summary.getP50Micros() + " p99 " + summary.getP99Micros()
+                + " p99.9 " + summary.getP999Micros() + " max " + summary.getMaxMicros();
+    }
+
+    public static class Summary {
+        private final long count;
+        private final long p50Micros;
+        private final long p99Micros;
+        private final long p999Micros;
+        private final long maxMicros;
+
+        public Summary(long count, long p50Micros, long p99Micros, long p999Micros, long maxMicros) {
+            this.count = count;
+            this.p50Micros = p50Micros;
+            this.p99Micros = p99Micros;
+            this.p999Micros = p999Micros;
+            this.maxMicros = maxMicros;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getP50Micros() {
+            return p50Micros;
+        }
+
+        public long getP99Micros() {
+            return p99Micros;
+        }
+
+        public long getP999Micros() {
+            return p999Micros;
+        }
+
+        public long getMaxMicros() {
+            return maxMicros;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package org.example;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.SplittableRandom;
+
+//opens many client connections to a GameServer from one selector thread and has every
+//pair play random legal moves as fast as the server answers. A client whose game ends
+//connects again, so the number of connections stays roughly constant. Watchers follow the
+//newest game and come back for the next one when it ends; every SLOW_WATCHER_EVERY-th
+//never reads, to see the server cope with spectators who don't keep up.
+public class LoadGenerator {
+
+    //games are cut off after this many plies so nobody shuffles pieces forever
+    private static final int MAX_PLIES = 200;
+    private static final int SLOW_WATCHER_EVERY = 10;
+
+    private final InetSocketAddress address;
+    private final int clients;
+    private final int watchers;
+    private final SplittableRandom random = new SplittableRandom(42);
+    private Selector selector;
+    private final Protocol.Message message = new Protocol.Message();
+
+    private long moves;
+    private long games;
+    private long watchedMoves;
+    private int newestGameId;
+    private int watchersConnected;
+
+    public LoadGenerator(InetSocketAddress address, int clients) {
+        this(address, clients, 0);
+    }
+
+    public LoadGenerator(InetSocketAddress address, int clients, int watchers) {
+        if (clients < 2) throw new IllegalArgumentException("Need at least two clients: " + clients);
+        if (watchers < 0) throw new IllegalArgumentException("Negative watchers: " + watchers);
+        this.address = address;
+        this.clients = clients;
+        this.watchers = watchers;
+    }
+
+    //runs for the given time, printing the move rate every second; returns the moves played
+    public long run(long millis) throws IOException {
+        selector = Selector.open();
+        for (int i = 0; i < clients; i++) {
+            connect(null);
+        }
+
+        long start = System.currentTimeMillis();
+        long end = start + millis;
+        long nextReport = start + 1000;
+        long movesAtLastReport = 0;
+        try {
+            while (true) {
+                long now = System.currentTimeMillis();
+                if (now >= end) break;
+                selector.select(Math.max(1, Math.min(end, nextReport) - now));
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    Client client = (Client) key.attachment();
+                    try {
+                        if (key.isValid() && key.isConnectable()) {
+                            client.channel.finishConnect();
+                            greet(client);
+                        }
+                        if (key.isValid() && key.isReadable()) read(client);
+                    } catch (IOException ex) {
+                        reconnect(client);
+                    }
+                }
+
+                //watchers need a game to watch
+                while (newestGameId != 0 && watchersConnected < watchers) {
+                    connect(new Watcher(watchersConnected++ % SLOW_WATCHER_EVERY == SLOW_WATCHER_EVERY - 1));
+                }
+
+                now = System.currentTimeMillis();
+                if (now >= nextReport) {
+                    System.out.println("clients " + clients + "  games " + games + "  moves/sec " + (moves - movesAtLastReport)
+                            + (watchers == 0 ? "" : "  watched moves " + watchedMoves));
+                    movesAtLastReport = moves;
+                    nextReport += 1000;
+                }
+            }
+        } finally {
+            for (SelectionKey key : selector.keys()) {
+                key.channel().close();
+            }
+            selector.close();
+        }
+
+        System.out.println("played " + moves + " moves in " + games + " games, "
+                + moves * 1000 / Math.max(1, millis) + " moves/sec");
+        return moves;
+    }
+
+    //a player, or a spectator if watcher isn't null
+    private void connect(Watcher watcher) throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        Client client = new Client(channel, watcher);
+        if (channel.connect(address)) {
+            channel.register(selector, SelectionKey.OP_READ, client);
+            greet(client);
+        } else {
+            channel.register(selector, SelectionKey.OP_CONNECT, client);
+        }
+    }
+
+    private void greet(Client client) throws IOException {
+        if (client.watcher == null) {
+            Protocol.hello(client.out);
+        } else {
+            client.gameId = newestGameId;
+            Protocol.watch(client.out, client.gameId);
+        }
+        write(client);
+        SelectionKey key = client.channel.keyFor(selector);
+        key.interestOps(client.watcher != null && client.watcher.slow ? 0 : SelectionKey.OP_READ);
+    }
+
+    private void reconnect(Client client) throws IOException {
+        client.channel.close();
+        connect(client.watcher);
+    }
+
+    private void read(Client client) throws IOException {
+        ByteBuffer in = client.in;
+        if (client.channel.read(in) < 0) {
+            reconnect(client);
+            return;
+        }
+
+        in.flip();
+        while (Protocol.decode(in, message)) {
+            handle(client, message);
+            if (!client.channel.isOpen()) return;
+        }
+        in.compact();
+    }
+
+    private void handle(Client client, Protocol.Message message) throws IOException {
+        if (client.watcher != null) {
+            //the game it asked for may have ended already, then it is turned away and tries the next
+            if (message.type == Protocol.MOVE) watchedMoves++;
+            return;
+        }
+        switch (message.type) {
+            case Protocol.START:
+                client.chessModel.reset();
+                client.gameId = message.gameId;
+                newestGameId = Math.max(newestGameId, message.gameId);
+                client.player = Player.values()[message.code];
+                if (client.player == Player.WHITE) {
+                    games++;
+                    play(client);
+                }
+                break;
+            case Protocol.ACK:
+                if (Metrics.ENABLED) Metrics.ROUND_TRIP.record(System.nanoTime() - client.moveSentNanos);
+                break;
+            case Protocol.MOVE:
+                if (Metrics.ENABLED) Metrics.MOVES_RECEIVED.increment();
+                ChessModel chessModel = client.chessModel;
+                int move = Protocol.findLegalMove(chessModel, message.move, client.moves);
+                if (move == Move.NONE || message.sequence != chessModel.getPly()) {
+                    throw new ProtocolException("Server sent an illegal move");
+                }
+                chessModel.makeMove(move);
+                if (chessModel.getHash() != message.hash) {
+                    throw new ProtocolException("Position hash differs from the server's");
+                }
+                play(client);
+                break;
+            case Protocol.ERROR:
+                throw new ProtocolException("Server sent error " + message.code);
+            default:
+                //after GAME_OVER the server closes and we reconnect on EOF
+        }
+    }
+
+    private void play(Client client) throws IOException {
+        ChessModel chessModel = client.chessModel;
+        int count = chessModel.generateLegalMoves(client.moves);
+        if (count == 0) return;
+        if (chessModel.getPly() >= MAX_PLIES) {
+            //leave rather than drop, or the server keeps the seat for a resume
+            Protocol.leave(client.out, client.gameId);
+            write(client);
+            reconnect(client);
+            return;
+        }
+
+        int move = client.moves.get(random.nextInt(count));
+        int sequence = chessModel.getPly();
+        chessModel.makeMove(move);
+        Protocol.move(client.out, client.gameId, sequence, move, chessModel.getHash());
+        client.moveSentNanos = System.nanoTime();
+        write(client);
+        moves++;
+    }
+
+    //frames are tiny and a client only writes when it's its turn, so the socket buffer always has room
+    private static void write(Client client) throws IOException {
+        ByteBuffer out = client.out;
+        out.flip();
+        while (out.hasRemaining()) {
+            client.channel.write(out);
+        }
+        out.clear();
+    }
+
+    private static class Client {
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocate(Protocol.MAX_FRAME_SIZE * 4);
+        final ByteBuffer out = ByteBuffer.allocate(Protocol.MAX_FRAME_SIZE);
+        final ChessModel chessModel = new ChessModel();
+        final MoveList moves = new MoveList();
+        //null for a player
+        final Watcher watcher;
+        int gameId;
+        Player player;
+        long moveSentNanos;
+
+        Client(SocketChannel channel, Watcher watcher) {
+            this.channel = channel;
+            this.watcher = watcher;
+        }
+    }
+
+    private static class Watcher {
+        final boolean slow;
+
+        Watcher(boolean slow) {
+            this.slow = slow;
+        }
+    }
+
+    // usage: LoadGenerator [clients] [seconds] [host:port|-] [watchers]
+    //without host:port a GameServer is started in this process on a free port
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int watchers = args.length > 3 ? Integer.parseInt(args[3]) : 0;
+        Metrics.start();
+
+        GameServer server = null;
+        InetSocketAddress address;
+        if (args.length > 2 && !args[2].equals("-")) {
+            String[] hostPort = args[2].split(":");
+            address = new InetSocketAddress(hostPort[0], Integer.parseInt(hostPort[1]));
+        } else {
+            server = new GameServer(0);
+            server.start();
+            address = new InetSocketAddress("localhost", server.getLocalPort());
+        }
+
+        try {
+            new LoadGenerator(address, clients, watchers).run(seconds * 1000L);
+        } finally {
+            if (server != null) {
+                server.stop();
+                server.awaitStop();
+                System.out.println("server: " + server.getTotalMoves() + " moves validated");
+                if (watchers > 0) System.out.println("broadcast us since the last report: " + server.getBroadcastLatency().toMicrosString());
+                if (Metrics.ENABLED) System.out.print(Metrics.report());
+            }
+        }
+    }
+}
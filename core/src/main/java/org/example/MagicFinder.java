@@ -0,0 +1,68 @@
+package org.example;
+
+import java.util.SplittableRandom;
+
+//searches magic multipliers for the sliding attack tables in Attacks and prints them
+//as Java arrays. Only needed if the table layout changes.
+// usage: MagicFinder [seed]
+public class MagicFinder {
+
+    public static void main(String[] args) {
+        SplittableRandom random = new SplittableRandom(args.length > 0 ? Long.parseLong(args[0]) : 1L);
+        print("ROOK_MAGICS", find(true, random));
+        print("BISHOP_MAGICS", find(false, random));
+    }
+
+    static long[] find(boolean rook, SplittableRandom random) {
+        long[] magics = new long[64];
+        for (int sq = 0; sq < 64; sq++) {
+            magics[sq] = find(sq, rook, random);
+        }
+        return magics;
+    }
+
+    private static long find(int square, boolean rook, SplittableRandom random) {
+        long mask = rook ? Attacks.rookMask(square) : Attacks.bishopMask(square);
+        int bits = Long.bitCount(mask);
+        int size = 1 << bits;
+
+        //every blocker subset of the mask and the attacks it leads to
+        long[] occupancies = new long[size];
+        long[] attacks = new long[size];
+        long subset = 0;
+        for (int i = 0; i < size; i++) {
+            occupancies[i] = subset;
+            attacks[i] = rook ? Attacks.slowRook(square, subset) : Attacks.slowBishop(square, subset);
+            subset = (subset - mask) & mask;
+        }
+
+        long[] used = new long[size];
+        int[] usedBy = new int[size];
+        for (int attempt = 1; ; attempt++) {
+            //sparse numbers make good magics
+            long magic = random.nextLong() & random.nextLong() & random.nextLong();
+            if (Long.bitCount((mask * magic) & 0xFF00000000000000L) < 6) continue;
+
+            boolean ok = true;
+            for (int i = 0; i < size && ok; i++) {
+                int index = (int) ((occupancies[i] * magic) >>> (64 - bits));
+                if (usedBy[index] != attempt) {
+                    usedBy[index] = attempt;
+                    used[index] = attacks[i];
+                } else if (used[index] != attacks[i]) {
+                    ok = false;
+                }
+            }
+            if (ok) return magic;
+        }
+    }
+
+    private static void print(String name, long[] magics) {
+        System.out.println("    private static final long[] " + name + " = {");
+        for (int i = 0; i < 64; i += 4) {
+            System.out.printf("            0x%016XL, 0x%016XL, 0x%016XL, 0x%016XL,%n",
+                    magics[i], magics[i + 1], magics[i + 2], magics[i + 3]);
+        }
+        System.out.println("    };");
+    }
+}
@@ -0,0 +1,177 @@
+package org.example;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+//process wide counters and latency histograms, off unless -Dchess.metrics=true. ENABLED is a
+//static final, so with metrics off the JIT drops every `if (Metrics.ENABLED)` block and the
+//instrumented code runs as if it wasn't there. Counters are LongAdders and the histograms are
+//lock-free, so any thread may record. start() publishes them as an MBean and, given
+//-Dchess.metrics.dump=<file>, rewrites that file every chess.metrics.dumpSeconds (default 10).
+public final class Metrics {
+
+    public static final boolean ENABLED = Boolean.getBoolean("chess.metrics");
+
+    static final String OBJECT_NAME = "org.example:type=Metrics";
+    //moves generated at every node of a search are only timed one in this many times
+    static final int GENERATION_SAMPLE = 64;
+
+    //ChessModel.isValidMove and movePiece
+    public static final LatencyHistogram MOVE_VALIDATION = new LatencyHistogram();
+    public static final LatencyHistogram MOVE_APPLICATION = new LatencyHistogram();
+    //ChessModel.generateLegalMoves, sampled
+    public static final LatencyHistogram MOVE_GENERATION = new LatencyHistogram();
+    //a MOVE on the game server, from decoded to answered
+    public static final LatencyHistogram SERVER_MOVES = new LatencyHistogram();
+    //a client's MOVE until its ACK
+    public static final LatencyHistogram ROUND_TRIP = new LatencyHistogram();
+    public static final LatencyHistogram REPAINT = new LatencyHistogram();
+
+    //MOVEs a client got from the server, the server's own are counted in SERVER_MOVES
+    public static final LongAdder MOVES_RECEIVED = new LongAdder();
+    //of finished searches
+    public static final LongAdder SEARCH_NODES = new LongAdder();
+    public static final LongAdder SEARCH_NANOS = new LongAdder();
+
+    private static boolean started;
+    private static boolean registered;
+
+    private Metrics() {
+    }
+
+    //registers the MBean and starts the dump, once; does nothing when metrics are off
+    public static synchronized void start() {
+        if (!ENABLED || started) return;
+        started = true;
+        register();
+
+        String dump = System.getProperty("chess.metrics.dump");
+        if (dump == null) return;
+        Path file = Path.of(dump);
+        long seconds = Long.getLong("chess.metrics.dumpSeconds", 10);
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleAtFixedRate(() -> dump(file), seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    static synchronized void register() {
+        if (registered) return;
+        registered = true;
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Bean(), new ObjectName(OBJECT_NAME));
+        } catch (JMException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    //replaces file as a whole, so a reader never sees half of it
+    static void dump(Path file) {
+        try {
+            Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+            Files.writeString(temp, report());
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    //one line per metric, latencies in microseconds
+    public static String report() {
+        StringBuilder out = new StringBuilder();
+        out.append("time ").append(System.currentTimeMillis()).append('\n');
+        out.append("movesReceived ").append(MOVES_RECEIVED.sum()).append('\n');
+        out.append("searchNodes ").append(SEARCH_NODES.sum()).append('\n');
+        out.append("nodesPerSecond ").append(nodesPerSecond()).append('\n');
+        appendHistogram(out, "moveValidation", MOVE_VALIDATION);
+        appendHistogram(out, "moveApplication", MOVE_APPLICATION);
+        appendHistogram(out, "moveGeneration", MOVE_GENERATION);
+        appendHistogram(out, "serverMoves", SERVER_MOVES);
+        appendHistogram(out, "roundTrip", ROUND_TRIP);
+        appendHistogram(out, "repaint", REPAINT);
+        return out.toString();
+    }
+
+    private static void appendHistogram(StringBuilder out, String name, LatencyHistogram histogram) {
+        out.append(name).append(" count ").append(histogram.getCount())
+                .append(' ').append(histogram.toMicrosString()).append('\n');
+    }
+
+    static long nodesPerSecond() {
+        long nanos = SEARCH_NANOS.sum();
+        return nanos == 0 ? 0 : (long) (SEARCH_NODES.sum() * 1e9 / nanos);
+    }
+
+    public static void reset() {
+        for (LatencyHistogram histogram : new LatencyHistogram[]{MOVE_VALIDATION, MOVE_APPLICATION,
+                MOVE_GENERATION, SERVER_MOVES, ROUND_TRIP, REPAINT}) {
+            histogram.reset();
+        }
+        MOVES_RECEIVED.reset();
+        SEARCH_NODES.reset();
+        SEARCH_NANOS.reset();
+    }
+
+    private static class Bean implements MetricsMXBean {
+        @Override
+        public long getMovesReceived() {
+            return MOVES_RECEIVED.sum();
+        }
+
+        @Override
+        public long getSearchNodes() {
+            return SEARCH_NODES.sum();
+        }
+
+        @Override
+        public long getNodesPerSecond() {
+            return nodesPerSecond();
+        }
+
+        @Override
+        public LatencyHistogram.Summary getMoveValidation() {
+            return MOVE_VALIDATION.summary();
+        }
+
+        @Override
+        public LatencyHistogram.Summary getMoveApplication() {
+            return MOVE_APPLICATION.summary();
+        }
+
+        @Override
+        public LatencyHistogram.Summary getMoveGeneration() {
+            return MOVE_GENERATION.summary();
+        }
+
+        @Override
+        public LatencyHistogram.Summary getServerMoves() {
+            return SERVER_MOVES.summary();
+        }
+
+        @Override
+        public LatencyHistogram.Summary getRoundTrip() {
+            return ROUND_TRIP.summary();
+        }
+
+        @Override
+        public LatencyHistogram.Summary getRepaint() {
+            return REPAINT.summary();
+        }
+
+        @Override
+        public void reset() {
+            Metrics.reset();
+        }
+    }
+}
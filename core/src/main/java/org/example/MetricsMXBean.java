@@ -0,0 +1,25 @@
+package org.example;
+
+//what Metrics shows over JMX, as org.example:type=Metrics. Latencies in microseconds.
+public interface MetricsMXBean {
+
+    long getMovesReceived();
+
+    long getSearchNodes();
+
+    long getNodesPerSecond();
+
+    LatencyHistogram.Summary getMoveValidation();
+
+    LatencyHistogram.Summary getMoveApplication();
+
+    LatencyHistogram.Summary getMoveGeneration();
+
+    LatencyHistogram.Summary getServerMoves();
+
+    LatencyHistogram.Summary getRoundTrip();
+
+    LatencyHistogram.Summary getRepaint();
+
+    void reset();
+}
@@ -0,0 +1,72 @@
+package org.example;
+
+//a move packed into an int: bits 0-5 from square, 6-11 to square, 12-15 flags.
+//Flag bit 4 marks captures and bit 8 promotions, whose low two bits pick the piece.
+public final class Move {
+
+    public static final int NONE = 0;
+
+    public static final int QUIET = 0;
+    public static final int DOUBLE_PUSH = 1;
+    public static final int KING_CASTLE = 2;
+    public static final int QUEEN_CASTLE = 3;
+    public static final int CAPTURE = 4;
+    public static final int EN_PASSANT = 5;
+    public static final int PROMOTION = 8;
+
+    //promotion pieces, or'ed into PROMOTION
+    public static final int PROMOTE_KNIGHT = 0;
+    public static final int PROMOTE_BISHOP = 1;
+    public static final int PROMOTE_ROOK = 2;
+    public static final int PROMOTE_QUEEN = 3;
+
+    //ChessModel rank per promotion piece
+    private static final int[] PROMOTION_RANKS = {ChessModel.KNIGHT, ChessModel.BISHOP, ChessModel.ROOK, ChessModel.QUEEN};
+    private static final String PROMOTION_LETTERS = "nbrq";
+
+    private Move() {
+    }
+
+    public static int of(int from, int to, int flags) {
+        return from | (to << 6) | (flags << 12);
+    }
+
+    public static int from(int move) {
+        return move & 63;
+    }
+
+    public static int to(int move) {
+        return (move >>> 6) & 63;
+    }
+
+    public static int flags(int move) {
+        return (move >>> 12) & 15;
+    }
+
+    public static boolean isCapture(int move) {
+        return (flags(move) & CAPTURE) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (flags(move) & PROMOTION) != 0;
+    }
+
+    public static boolean isCastling(int move) {
+        return flags(move) == KING_CASTLE || flags(move) == QUEEN_CASTLE;
+    }
+
+    //the rank (ChessModel.QUEEN ...) a promotion turns the pawn into
+    public static int promotionRank(int move) {
+        return PROMOTION_RANKS[flags(move) & 3];
+    }
+
+    //long algebraic notation, e.g. "e2e4", "e7e8q"
+    public static String toUci(int move) {
+        String uci = squareName(from(move)) + squareName(to(move));
+        return isPromotion(move) ? uci + PROMOTION_LETTERS.charAt(flags(move) & 3) : uci;
+    }
+
+    public static String squareName(int square) {
+        return "" + (char) ('a' + Bitboards.col(square)) + (char) ('1' + Bitboards.row(square));
+    }
+}
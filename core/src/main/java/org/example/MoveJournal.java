@@ -0,0 +1,342 @@
+package org.example;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+//append-only log of the games a GameServer has in flight, so they survive the process.
+//Fixed size records go into memory-mapped segment files journal-<n>.seg; a record is a few
+//stores into the page cache, which the kernel keeps when the process dies. How often the pages
+//are forced to the disk, for surviving the machine, is the Flush policy. A segment is deleted
+//once every game with records in it has ended, and a new one is started when it is full.
+//open() reads the segments back and hands the games that were still going to the server.
+//
+//record, little room wasted and no record spans two pages:
+//  type:u8 0:u8 move:u16 gameId:i32 ply:i32 checksum:i32 a:i64 b:i64
+//START has the two seat tokens in a and b, MOVE the Zobrist key after the move in a.
+//A torn record from a crash fails its checksum and ends the segment.
+public class MoveJournal implements Closeable {
+
+    public enum Flush {
+        //the kernel writes the pages back when it likes, a crashed process loses nothing
+        OS,
+        //a background thread forces what was written every GROUP_COMMIT_MILLIS
+        GROUP,
+        //every record is forced before the call returns, milliseconds per move
+        EVERY_MOVE
+    }
+
+    static final int RECORD_SIZE = 32;
+    static final int START = 1;
+    static final int MOVE = 2;
+    static final int END = 3;
+    //the first record of a segment
+    static final int HEADER = 4;
+
+    static final long MAGIC = 0x43484553534A4E4CL;
+    static final int DEFAULT_SEGMENT_RECORDS = 1 << 17;
+    static final long GROUP_COMMIT_MILLIS = 10;
+
+    private final Path directory;
+    private final Flush flush;
+    private final int segmentRecords;
+
+    //segments still needed, by index; the last one is written
+    private final Map<Integer, MappedByteBuffer> segments = new HashMap<>();
+    private int firstSegment;
+    private int currentIndex;
+    private volatile MappedByteBuffer current;
+    //records of current written, and forced by the group commit
+    private volatile int written;
+    private int forced;
+    //segment each open game started in, nothing before the oldest of them is needed
+    private final Map<Integer, Integer> startSegments = new HashMap<>();
+    private final List<OpenGame> openGames = new ArrayList<>();
+    private Thread flusher;
+    private volatile boolean closed;
+    //after an IOException nothing more is written, the games go on without a journal
+    private boolean failed;
+
+    //a game that was going when the journal was last written, with its moves in order
+    public static class OpenGame {
+        private final int id;
+        private final long whiteToken;
+        private final long blackToken;
+        private int[] moves = new int[64];
+        private long[] hashes = new long[64];
+        private int moveCount;
+
+        OpenGame(int id, long whiteToken, long blackToken) {
+            this.id = id;
+            this.whiteToken = whiteToken;
+            this.blackToken = blackToken;
+        }
+
+        void add(int move, long hash) {
+            if (moveCount == moves.length) {
+                moves = Arrays.copyOf(moves, moveCount * 2);
+                hashes = Arrays.copyOf(hashes, moveCount * 2);
+            }
+            moves[moveCount] = move;
+            hashes[moveCount++] = hash;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public long getWhiteToken() {
+            return whiteToken;
+        }
+
+        public long getBlackToken() {
+            return blackToken;
+        }
+
+        public int getMoveCount() {
+            return moveCount;
+        }
+
+        public int getMove(int ply) {
+            return moves[ply];
+        }
+
+        public long getHash(int ply) {
+            return hashes[ply];
+        }
+    }
+
+    private MoveJournal(Path directory, Flush flush, int segmentRecords) {
+        this.directory = directory;
+        this.flush = flush;
+        this.segmentRecords = segmentRecords;
+    }
+
+    public static MoveJournal open(Path directory, Flush flush) throws IOException {
+        return open(directory, flush, DEFAULT_SEGMENT_RECORDS);
+    }
+
+    //reads what is there and starts a new segment after it
+    static MoveJournal open(Path directory, Flush flush, int segmentRecords) throws IOException {
+        if (segmentRecords < 2) throw new IllegalArgumentException("Segment too small: " + segmentRecords);
+        Files.createDirectories(directory);
+        MoveJournal journal = new MoveJournal(directory, flush, segmentRecords);
+        journal.replay();
+        journal.roll();
+        if (flush == Flush.GROUP) {
+            journal.flusher = new Thread(journal::groupCommit, "journal-flusher");
+            journal.flusher.setDaemon(true);
+            journal.flusher.start();
+        }
+        return journal;
+    }
+
+    //the games that had no END when the journal was opened, in the order they started
+    public List<OpenGame> getOpenGames() {
+        return openGames;
+    }
+
+    private void replay() throws IOException {
+        List<Integer> indexes = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                int index = segmentIndex(file);
+                if (index >= 0) indexes.add(index);
+            });
+        }
+        indexes.sort(null);
+
+        Map<Integer, OpenGame> games = new HashMap<>();
+        firstSegment = indexes.isEmpty() ? 1 : indexes.get(0);
+        currentIndex = indexes.isEmpty() ? 0 : indexes.get(indexes.size() - 1);
+        for (int index : indexes) {
+            MappedByteBuffer segment;
+            try (FileChannel channel = FileChannel.open(segmentFile(index), StandardOpenOption.READ)) {
+                segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            segments.put(index, segment);
+            int records = segment.capacity() / RECORD_SIZE;
+            if (records == 0 || !valid(segment, 0) || segment.get(0) != HEADER || segment.getLong(16) != MAGIC) continue;
+
+            for (int i = 1; i < records; i++) {
+                int at = i * RECORD_SIZE;
+                //never written, or torn by a crash
+                if (!valid(segment, at)) break;
+                int gameId = segment.getInt(at + 4);
+                switch (segment.get(at)) {
+                    case START:
+                        games.put(gameId, new OpenGame(gameId, segment.getLong(at + 16), segment.getLong(at + 24)));
+                        startSegments.put(gameId, index);
+                        break;
+                    case MOVE:
+                        OpenGame game = games.get(gameId);
+                        //a ply out of order would only be a bug, the game is replayed up to it
+                        if (game != null && segment.getInt(at + 8) == game.moveCount) {
+                            game.add(segment.getShort(at + 2) & 0xFFFF, segment.getLong(at + 16));
+                        }
+                        break;
+                    case END:
+                        games.remove(gameId);
+                        startSegments.remove(gameId);
+                        break;
+                }
+            }
+        }
+        openGames.addAll(games.values());
+        openGames.sort((a, b) -> Integer.compare(a.id, b.id));
+        deleteUnneeded();
+    }
+
+    public void start(int gameId, long whiteToken, long blackToken) {
+        if (append(START, 0, gameId, 0, whiteToken, blackToken)) startSegments.put(gameId, currentIndex);
+    }
+
+    public void move(int gameId, int ply, int move, long hash) {
+        append(MOVE, move, gameId, ply, hash, 0);
+    }
+
+    public void end(int gameId) {
+        if (!append(END, 0, gameId, 0, 0, 0)) return;
+        Integer segment = startSegments.remove(gameId);
+        if (segment != null && segment == firstSegment) deleteUnneeded();
+    }
+
+    //only the owner's thread appends, the flusher only forces
+    private boolean append(int type, int move, int gameId, int ply, long a, long b) {
+        if (failed || closed) return false;
+        try {
+            if (written == segmentRecords) roll();
+            MappedByteBuffer segment = current;
+            int at = written * RECORD_SIZE;
+            put(segment, at, type, move, gameId, ply, a, b);
+            written++;
+            if (flush == Flush.EVERY_MOVE) segment.force(at, RECORD_SIZE);
+            return true;
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            failed = true;
+            return false;
+        }
+    }
+
+    private static void put(ByteBuffer segment, int at, int type, int move, int gameId, int ply, long a, long b) {
+        //the checksum goes in last, a crash before it leaves a record that doesn't check out
+        segment.put(at, (byte) type);
+        segment.put(at + 1, (byte) 0);
+        segment.putShort(at + 2, (short) move);
+        segment.putInt(at + 4, gameId);
+        segment.putInt(at + 8, ply);
+        segment.putLong(at + 16, a);
+        segment.putLong(at + 24, b);
+        segment.putInt(at + 12, checksum(type, move, gameId, ply, a, b));
+    }
+
+    private static boolean valid(ByteBuffer segment, int at) {
+        int type = segment.get(at);
+        return type != 0 && segment.getInt(at + 12) == checksum(type, segment.getShort(at + 2) & 0xFFFF,
+                segment.getInt(at + 4), segment.getInt(at + 8), segment.getLong(at + 16), segment.getLong(at + 24));
+    }
+
+    static int checksum(int type, int move, int gameId, int ply, long a, long b) {
+        long h = type * 0x9E3779B97F4A7C15L ^ move;
+        h = (h ^ gameId) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ ply) * 0x94D049BB133111EBL;
+        h = (h ^ a) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ b) * 0x94D049BB133111EBL;
+        h ^= h >>> 31;
+        return (int) (h ^ (h >>> 32)) | 1;
+    }
+
+    //starts the next segment; under GROUP and EVERY_MOVE the full one is forced first, once per segment
+    private void roll() throws IOException {
+        MappedByteBuffer full = current;
+        if (full != null && flush != Flush.OS) full.force();
+
+        currentIndex++;
+        MappedByteBuffer segment;
+        try (FileChannel channel = FileChannel.open(segmentFile(currentIndex),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) segmentRecords * RECORD_SIZE);
+        }
+        put(segment, 0, HEADER, 0, 0, currentIndex, MAGIC, 0);
+        segments.put(currentIndex, segment);
+        synchronized (this) {
+            current = segment;
+            written = 1;
+            forced = 0;
+        }
+        if (startSegments.isEmpty()) deleteUnneeded();
+    }
+
+    //deletes the segments before the one the oldest open game started in
+    private void deleteUnneeded() {
+        int needed = currentIndex;
+        for (int segment : startSegments.values()) {
+            needed = Math.min(needed, segment);
+        }
+        for (; firstSegment < needed; firstSegment++) {
+            segments.remove(firstSegment);
+            try {
+                Files.deleteIfExists(segmentFile(firstSegment));
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+        }
+    }
+
+    private void groupCommit() {
+        while (!closed) {
+            try {
+                Thread.sleep(GROUP_COMMIT_MILLIS);
+            } catch (InterruptedException ex) {
+                return;
+            }
+            force();
+        }
+    }
+
+    //forces the records written since the last time, all on the same page or few
+    private synchronized void force() {
+        int end = written;
+        if (end == forced) return;
+        current.force(forced * RECORD_SIZE, (end - forced) * RECORD_SIZE);
+        forced = end;
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        if (flusher != null) flusher.interrupt();
+        if (current != null && flush != Flush.OS) force();
+    }
+
+    int getSegmentCount() {
+        return segments.size();
+    }
+
+    private Path segmentFile(int index) {
+        return directory.resolve(String.format("journal-%08d.seg", index));
+    }
+
+    private static int segmentIndex(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.startsWith("journal-") || !name.endsWith(".seg")) return -1;
+        try {
+            return Integer.parseInt(name.substring(8, name.length() - 4));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package org.example;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+//efficiently updatable neural network (NNUE) to evaluate with instead of Evaluation's tables.
+//768 inputs, a piece code on a square, seen from each side: from black's the colours are swapped
+//and the board turned over, so both sides share the weights. The hidden layer is one int16
+//accumulator per side, clipped to [0, QA], and the output one int8 weight per hidden value,
+//side to move first. The inputs change by a few per move and the first layer is linear, so the
+//accumulators are kept up to date by NnueAccumulator as ChessModel moves pieces, and evaluate()
+//is one dot product over 2 * hidden values.
+//
+//file, big-endian:
+//  magic:i64 hidden:i32 scale:i32 outputBias:i32 0:i32
+//  featureWeights:i16[768 * hidden] featureBiases:i16[hidden] outputWeights:i8[2 * hidden]
+//centipawns for the side to move = (sum + outputBias) * scale / (QA * QB)
+public class Nnue {
+
+    static final long MAGIC = 0x434845534E4E5545L;
+    static final int HEADER_SIZE = 24;
+    static final int FEATURES = 768;
+    static final int MAX_HIDDEN = 4096;
+    //hidden values are clipped to [0, QA]; output weights are QB to one
+    static final int QA = 127;
+    static final int QB = 64;
+    //evaluations are clipped to this, short of the search's known wins and mates
+    static final int MAX_SCORE = 8000;
+
+    //the Vector API is an incubator module, there only when the JVM was started with
+    //--add-modules jdk.incubator.vector. Without it the plain loops are used, and NnueVector,
+    //the only class that refers to the module, is never loaded.
+    public static final boolean VECTOR_AVAILABLE = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent();
+
+    final int hidden;
+    final int scale;
+    final int outputBias;
+    //row per feature, hidden values long
+    final short[] featureWeights;
+    final short[] featureBiases;
+    //int8 in the file, widened so the vector code multiplies shorts by shorts
+    final short[] outputWeights;
+
+    private Nnue(int hidden, int scale, int outputBias) {
+        this.hidden = hidden;
+        this.scale = scale;
+        this.outputBias = outputBias;
+        featureWeights = new short[FEATURES * hidden];
+        featureBiases = new short[hidden];
+        outputWeights = new short[2 * hidden];
+    }
+
+    //read onto the heap rather than probed in place like the bitbases, the vector loads take arrays
+    public static Nnue load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE) throw new IOException("Not a network: " + file);
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getLong(0) != MAGIC) throw new IOException("Not a network: " + file);
+            int hidden = buffer.getInt(8);
+            if (hidden <= 0 || hidden > MAX_HIDDEN || channel.size() != fileSize(hidden)) {
+                throw new IOException("Bad network size: " + file);
+            }
+            Nnue network = new Nnue(hidden, buffer.getInt(12), buffer.getInt(16));
+            buffer.position(HEADER_SIZE);
+            buffer.asShortBuffer().get(network.featureWeights).get(network.featureBiases);
+            buffer.position(HEADER_SIZE + 2 * (FEATURES + 1) * hidden);
+            for (int i = 0; i < network.outputWeights.length; i++) {
+                network.outputWeights[i] = buffer.get();
+            }
+            return network;
+        }
+    }
+
+    public void save(Path file) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate((int) fileSize(hidden));
+        buffer.putLong(MAGIC).putInt(hidden).putInt(scale).putInt(outputBias).putInt(0);
+        buffer.asShortBuffer().put(featureWeights).put(featureBiases);
+        buffer.position(HEADER_SIZE + 2 * (FEATURES + 1) * hidden);
+        for (short weight : outputWeights) {
+            buffer.put((byte) weight);
+        }
+        buffer.flip();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) channel.write(buffer);
+        }
+    }
+
+    private static long fileSize(int hidden) {
+        return HEADER_SIZE + 2L * (FEATURES + 1) * hidden + 2L * hidden;
+    }
+
+    //untrained weights of the sizes a trained network has, for the tests and benchmarks
+    static Nnue random(int hidden, long seed) {
+        if (hidden <= 0 || hidden > MAX_HIDDEN) throw new IllegalArgumentException("Bad hidden size: " + hidden);
+        Random random = new Random(seed);
+        Nnue network = new Nnue(hidden, 400, random.nextInt(2001) - 1000);
+        for (int i = 0; i < network.featureWeights.length; i++) {
+            network.featureWeights[i] = (short) (random.nextInt(33) - 16);
+        }
+        for (int i = 0; i < hidden; i++) {
+            network.featureBiases[i] = (short) random.nextInt(QA + 1);
+        }
+        for (int i = 0; i < network.outputWeights.length; i++) {
+            network.outputWeights[i] = (short) (random.nextInt(256) - 128);
+        }
+        return network;
+    }
+
+    public int getHidden() {
+        return hidden;
+    }
+
+    //input of piece on sq as perspective sees it
+    static int feature(int perspective, int piece, int sq) {
+        return perspective == 0 ? piece * 64 + sq : (piece < 6 ? piece + 6 : piece - 6) * 64 + (sq ^ 56);
+    }
+
+    //from the two sides' hidden values
+    int output(int sum) {
+        long score = (long) (sum + outputBias) * scale / (QA * QB);
+        return (int) Math.max(-MAX_SCORE, Math.min(score, MAX_SCORE));
+    }
+}
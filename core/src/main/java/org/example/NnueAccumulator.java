@@ -0,0 +1,107 @@
+package org.example;
+
+import java.util.Arrays;
+
+//the first layer of an Nnue for one position, one int16 value per hidden unit and side.
+//Attached to a ChessModel, which adds and takes away weight rows as pieces come and go,
+//so unmaking a move puts back exactly what was there: int16 sums wrap around but still
+//come back. The sums are done by NnueVector when the Vector API is there, by plain loops
+//otherwise; both give the same values.
+public class NnueAccumulator {
+
+    private final Nnue network;
+    private final boolean vector;
+    //by perspective, white's and black's
+    private final short[][] values;
+
+    public NnueAccumulator(Nnue network) {
+        this(network, Nnue.VECTOR_AVAILABLE);
+    }
+
+    //vector false for the plain loops even when the Vector API is there
+    NnueAccumulator(Nnue network, boolean vector) {
+        if (vector && !Nnue.VECTOR_AVAILABLE) throw new IllegalArgumentException("No jdk.incubator.vector module");
+        this.network = network;
+        this.vector = vector;
+        values = new short[2][network.hidden];
+        reset();
+    }
+
+    //the empty board
+    void reset() {
+        System.arraycopy(network.featureBiases, 0, values[0], 0, network.hidden);
+        System.arraycopy(network.featureBiases, 0, values[1], 0, network.hidden);
+    }
+
+    //counted again from the pieces on the board
+    void refresh(ChessModel chessModel) {
+        reset();
+        for (int piece = 0; piece < 12; piece++) {
+            for (long board = chessModel.getPieceBoard(piece); board != 0; board &= board - 1) {
+                add(piece, Bitboards.first(board));
+            }
+        }
+    }
+
+    void add(int piece, int sq) {
+        for (int perspective = 0; perspective < 2; perspective++) {
+            int row = Nnue.feature(perspective, piece, sq) * network.hidden;
+            if (vector) {
+                NnueVector.add(values[perspective], network.featureWeights, row);
+            } else {
+                short[] acc = values[perspective];
+                for (int i = 0; i < acc.length; i++) acc[i] += network.featureWeights[row + i];
+            }
+        }
+    }
+
+    void remove(int piece, int sq) {
+        for (int perspective = 0; perspective < 2; perspective++) {
+            int row = Nnue.feature(perspective, piece, sq) * network.hidden;
+            if (vector) {
+                NnueVector.subtract(values[perspective], network.featureWeights, row);
+            } else {
+                short[] acc = values[perspective];
+                for (int i = 0; i < acc.length; i++) acc[i] -= network.featureWeights[row + i];
+            }
+        }
+    }
+
+    //one pass over the values instead of a remove and an add
+    void move(int piece, int from, int to) {
+        for (int perspective = 0; perspective < 2; perspective++) {
+            int addRow = Nnue.feature(perspective, piece, to) * network.hidden;
+            int subtractRow = Nnue.feature(perspective, piece, from) * network.hidden;
+            if (vector) {
+                NnueVector.addSubtract(values[perspective], network.featureWeights, addRow, subtractRow);
+            } else {
+                short[] acc = values[perspective];
+                short[] weights = network.featureWeights;
+                for (int i = 0; i < acc.length; i++) acc[i] += weights[addRow + i] - weights[subtractRow + i];
+            }
+        }
+    }
+
+    //centipawns from the point of view of toMove
+    public int evaluate(Player toMove) {
+        short[] us = values[toMove.ordinal()];
+        short[] them = values[toMove.ordinal() ^ 1];
+        int sum = vector
+                ? NnueVector.dot(us, network.outputWeights, 0) + NnueVector.dot(them, network.outputWeights, network.hidden)
+                : dot(us, network.outputWeights, 0) + dot(them, network.outputWeights, network.hidden);
+        return network.output(sum);
+    }
+
+    //clipped hidden values times the output weights from offset
+    private static int dot(short[] acc, short[] weights, int offset) {
+        int sum = 0;
+        for (int i = 0; i < acc.length; i++) {
+            sum += Math.min(Math.max(acc[i], 0), Nnue.QA) * weights[offset + i];
+        }
+        return sum;
+    }
+
+    boolean sameValues(NnueAccumulator other) {
+        return Arrays.equals(values[0], other.values[0]) && Arrays.equals(values[1], other.values[1]);
+    }
+}
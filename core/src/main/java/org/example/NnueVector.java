@@ -0,0 +1,69 @@
+package org.example;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+//NnueAccumulator's loops with the Vector API, as many shorts at a time as the CPU's widest
+//registers hold. Only loaded when Nnue.VECTOR_AVAILABLE; a tail shorter than a register is
+//done one value at a time.
+final class NnueVector {
+
+    private static final VectorSpecies<Short> SHORTS = ShortVector.SPECIES_PREFERRED;
+    //the same width, half as many lanes
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+
+    private NnueVector() {
+    }
+
+    static void add(short[] acc, short[] weights, int row) {
+        int i = 0;
+        for (int bound = SHORTS.loopBound(acc.length); i < bound; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, acc, i)
+                    .add(ShortVector.fromArray(SHORTS, weights, row + i))
+                    .intoArray(acc, i);
+        }
+        for (; i < acc.length; i++) acc[i] += weights[row + i];
+    }
+
+    static void subtract(short[] acc, short[] weights, int row) {
+        int i = 0;
+        for (int bound = SHORTS.loopBound(acc.length); i < bound; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, acc, i)
+                    .sub(ShortVector.fromArray(SHORTS, weights, row + i))
+                    .intoArray(acc, i);
+        }
+        for (; i < acc.length; i++) acc[i] -= weights[row + i];
+    }
+
+    static void addSubtract(short[] acc, short[] weights, int addRow, int subtractRow) {
+        int i = 0;
+        for (int bound = SHORTS.loopBound(acc.length); i < bound; i += SHORTS.length()) {
+            ShortVector.fromArray(SHORTS, acc, i)
+                    .add(ShortVector.fromArray(SHORTS, weights, addRow + i))
+                    .sub(ShortVector.fromArray(SHORTS, weights, subtractRow + i))
+                    .intoArray(acc, i);
+        }
+        for (; i < acc.length; i++) acc[i] += weights[addRow + i] - weights[subtractRow + i];
+    }
+
+    static int dot(short[] acc, short[] weights, int offset) {
+        IntVector sums = IntVector.zero(INTS);
+        int i = 0;
+        for (int bound = SHORTS.loopBound(acc.length); i < bound; i += SHORTS.length()) {
+            //QA * an int8 weight still fits a short, the products are widened to be added up
+            ShortVector products = ShortVector.fromArray(SHORTS, acc, i)
+                    .lanewise(VectorOperators.MAX, (short) 0)
+                    .lanewise(VectorOperators.MIN, (short) Nnue.QA)
+                    .mul(ShortVector.fromArray(SHORTS, weights, offset + i));
+            sums = sums.add(products.convert(VectorOperators.S2I, 0))
+                    .add(products.convert(VectorOperators.S2I, 1));
+        }
+        int sum = sums.reduceLanes(VectorOperators.ADD);
+        for (; i < acc.length; i++) {
+            sum += Math.min(Math.max(acc[i], 0), Nnue.QA) * weights[offset + i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,163 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+//"Lazy SMP": helper threads search the same root independently and only cooperate
+//through the shared transposition table. The calling thread runs the main search,
+//whose result is returned; the helpers are stopped as soon as it finishes.
+//Each search has its own stop flag, the only signal every thread checks. A caller that
+//hands search() to another thread calls prepareSearch() first, so that a stop() coming
+//before the thread gets going stops that search instead of being lost.
+public class ParallelSearch {
+
+    private final Search[] searches;
+    private final ExecutorService helperExecutor;
+
+    //flag of the running search, or of the next one after prepareSearch(); guarded by this
+    private AtomicBoolean abort = new AtomicBoolean();
+    private boolean prepared;
+
+    public ParallelSearch(TranspositionTable table, int threads) {
+        if (threads < 1) throw new IllegalArgumentException("Need at least one thread: " + threads);
+
+        searches = new Search[threads];
+        for (int i = 0; i < threads; i++) {
+            searches[i] = new Search(table, i);
+        }
+        helperExecutor = threads > 1 ? Executors.newFixedThreadPool(threads - 1, r -> {
+            Thread thread = new Thread(r, "chess-search-helper");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    public int getThreads() {
+        return searches.length;
+    }
+
+    //endgame tables for every thread, null for none. Not while searching.
+    public void setBitbases(Bitbases bitbases) {
+        for (Search search : searches) {
+            search.setBitbases(bitbases);
+        }
+    }
+
+    //network for every thread to evaluate with, null for Evaluation's tables. Not while searching.
+    public void setNetwork(Nnue network) {
+        for (Search search : searches) {
+            search.setNetwork(network);
+        }
+    }
+
+    public SearchResult search(ChessModel position, SearchLimits limits) {
+        return search(position, limits, null);
+    }
+
+    //blocks until the main search is done, listener sees every completed depth with the nodes of all threads
+    public SearchResult search(ChessModel position, SearchLimits limits, Consumer<SearchResult> listener) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        AtomicBoolean abort;
+        synchronized (this) {
+            //a stop() since prepareSearch() has already set the flag
+            if (!prepared) this.abort = new AtomicBoolean();
+            prepared = false;
+            abort = this.abort;
+        }
+
+        List<Future<?>> helpers = new ArrayList<>();
+        for (int i = 1; i < searches.length; i++) {
+            Search helper = searches[i];
+            helpers.add(helperExecutor.submit(() -> helper.search(position, SearchLimits.infinite(), null, abort)));
+        }
+
+        Consumer<SearchResult> totals = listener == null ? null
+                : r -> listener.accept(withTotalNodes(r));
+        SearchResult result;
+        try {
+            result = searches[0].search(position, limits, totals, abort);
+        } finally {
+            abort.set(true);
+            for (Future<?> helper : helpers) {
+                try {
+                    helper.get();
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                } catch (ExecutionException ex) {
+                    ex.printStackTrace();
+                }
+            }
+        }
+        SearchResult total = withTotalNodes(result);
+        if (Metrics.ENABLED) {
+            Metrics.SEARCH_NODES.add(total.getNodes());
+            Metrics.SEARCH_NANOS.add(System.nanoTime() - start);
+        }
+        return total;
+    }
+
+    //the next search() gets a new flag now, which stop() sets from here on
+    public synchronized void prepareSearch() {
+        abort = new AtomicBoolean();
+        prepared = true;
+    }
+
+    //stops the running search, or the prepared one when it starts. A stop after the search
+    //returned sets a flag nobody reads any more.
+    public synchronized void stop() {
+        abort.set(true);
+    }
+
+    public void shutdown() {
+        stop();
+        if (helperExecutor != null) helperExecutor.shutdownNow();
+    }
+
+    private SearchResult withTotalNodes(SearchResult result) {
+        long nodes = 0;
+        for (Search search : searches) {
+            nodes += search.getNodes();
+        }
+        return new SearchResult(result.getBestMove(), result.getScore(), result.getDepth(), nodes, result.getTimeMillis());
+    }
+
+    // usage: ParallelSearch [depth] [maxThreads] [hashMb]
+    //prints time-to-depth and NPS for 1, 2, 4 ... threads on a few standard positions
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 9;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int hashMb = args.length > 2 ? Integer.parseInt(args[2]) : 128;
+        String[] fens = {
+                ChessConstants.startFen,
+                "r1bqkb1r/pppp1ppp/2n2n2/4p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4",
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+        };
+
+        double baseMillis = 0;
+        for (int threads = 1; threads <= maxThreads; threads *= 2) {
+            TranspositionTable table = new TranspositionTable(hashMb);
+            ParallelSearch search = new ParallelSearch(table, threads);
+            long millis = 0;
+            long nodes = 0;
+            for (String fen : fens) {
+                ChessModel chessModel = new ChessModel();
+                chessModel.loadFen(fen);
+                table.clear();
+                SearchResult result = search.search(chessModel, SearchLimits.depth(depth));
+                millis += result.getTimeMillis();
+                nodes += result.getNodes();
+            }
+            search.shutdown();
+
+            if (threads == 1) baseMillis = Math.max(1, millis);
+            System.out.printf("threads %2d  time-to-depth %6d ms  speedup %5.2f  nps %10d%n",
+                    threads, millis, baseMillis / Math.max(1, millis), nodes * 1000 / Math.max(1, millis));
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package org.example;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+//counts the leaves of the legal move tree, to check move generation against known node counts
+public class Perft {
+
+    private final ChessModel chessModel;
+
+    //one move buffer per remaining depth so the walk does not allocate
+    private final MoveList[] moveLists;
+
+    public Perft(ChessModel chessModel, int maxDepth) {
+        this.chessModel = chessModel;
+        moveLists = new MoveList[maxDepth + 1];
+        for (int i = 0; i <= maxDepth; i++) {
+            moveLists[i] = new MoveList();
+        }
+    }
+
+    public long perft(int depth) {
+        if (depth == 0) return 1;
+
+        MoveList moves = moveLists[depth];
+        int count = chessModel.generateLegalMoves(moves);
+        if (depth == 1) return count;
+
+        long nodes = 0;
+        for (int i = 0; i < count; i++) {
+            chessModel.makeMove(moves.get(i));
+            nodes += perft(depth - 1);
+            chessModel.unmakeMove();
+        }
+        return nodes;
+    }
+
+    //prints the node count below every root move ("divide"), returns the total
+    public long divide(int depth, PrintStream out) {
+        MoveList moves = moveLists[depth];
+        int count = chessModel.generateLegalMoves(moves);
+
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            int move = moves.get(i);
+            chessModel.makeMove(move);
+            long nodes = perft(depth - 1);
+            chessModel.unmakeMove();
+
+            out.println(Move.toUci(move) + ": " + nodes);
+            total += nodes;
+        }
+        return total;
+    }
+
+    // usage: Perft <depth> [fen]
+    public static void main(String[] args) {
+        int depth = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+        if (depth < 1) {
+            System.out.println("usage: Perft <depth> [fen]");
+            return;
+        }
+
+        String fen = args.length > 1 ? String.join(" ", Arrays.copyOfRange(args, 1, args.length)) : ChessConstants.startFen;
+
+        ChessModel chessModel = new ChessModel();
+        chessModel.loadFen(fen);
+        Perft perft = new Perft(chessModel, depth);
+
+        long start = System.nanoTime();
+        long nodes = perft.divide(depth, System.out);
+        long nanos = Math.max(1, System.nanoTime() - start);
+
+        System.out.println();
+        System.out.println("Nodes: " + nodes);
+        System.out.println("Time: " + nanos / 1_000_000 + " ms");
+        System.out.println("NPS: " + nodes * 1_000_000_000L / nanos);
+    }
+}
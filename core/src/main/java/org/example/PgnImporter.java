@@ -0,0 +1,456 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+//streams a PGN file through ChessModel to check every game. The calling thread maps the file
+//a window at a time, cuts it into games and hands batches of them to a pool of workers, which
+//replay the SAN moves on a model of their own. The work queue is bounded and the caller runs a
+//batch itself when it is full, so only a few batches are ever in memory, whatever the file size.
+public class PgnImporter {
+
+    private static final long DEFAULT_WINDOW_SIZE = 64L << 20;
+    private static final int BATCH_GAMES = 256;
+    private static final int BATCH_BYTES = 1 << 20;
+    //how many bad games are described in the report, the rest are only counted
+    private static final int MAX_DIAGNOSTICS = 100;
+
+    //called on a worker thread for every game that replays cleanly, with the model at its final position
+    public interface GameListener {
+        void gameReplayed(long gameNumber, ChessModel chessModel);
+    }
+
+    private final int threads;
+    private final GameListener listener;
+    //how much of the file is mapped at a time
+    private final long windowSize;
+
+    public PgnImporter(int threads) {
+        this(threads, null);
+    }
+
+    public PgnImporter(int threads, GameListener listener) {
+        this(threads, listener, DEFAULT_WINDOW_SIZE);
+    }
+
+    PgnImporter(int threads, GameListener listener, long windowSize) {
+        if (threads < 1) throw new IllegalArgumentException("Need at least one thread: " + threads);
+        this.threads = threads;
+        this.listener = listener;
+        this.windowSize = windowSize;
+    }
+
+    public static class Report {
+        private final long games;
+        private final long badGames;
+        private final long plies;
+        private final long bytes;
+        private final long millis;
+        private final List<String> diagnostics;
+
+        Report(long games, long badGames, long plies, long bytes, long millis, List<String> diagnostics) {
+            this.games = games;
+            this.badGames = badGames;
+            this.plies = plies;
+            this.bytes = bytes;
+            this.millis = millis;
+            this.diagnostics = diagnostics;
+        }
+
+        public long getGames() {
+            return games;
+        }
+
+        public long getBadGames() {
+            return badGames;
+        }
+
+        public long getPlies() {
+            return plies;
+        }
+
+        public long getMillis() {
+            return millis;
+        }
+
+        public long getGamesPerSecond() {
+            return games * 1000 / Math.max(1, millis);
+        }
+
+        //the first bad games, "game <n> at byte <offset>: <reason>"
+        public List<String> getDiagnostics() {
+            return diagnostics;
+        }
+
+        @Override
+        public String toString() {
+            return games + " games (" + badGames + " bad), " + plies + " plies, " + bytes / (1 << 20) + " MB in "
+                    + millis + " ms: " + getGamesPerSecond() + " games/sec, " + plies * 1000 / Math.max(1, millis) + " plies/sec";
+        }
+    }
+
+    //a run of whole games copied out of the file
+    private static class Batch {
+        final byte[] data;
+        final int[] starts = new int[BATCH_GAMES + 1];
+        final long[] offsets = new long[BATCH_GAMES];
+        final long firstGame;
+        int count;
+        int size;
+
+        Batch(long firstGame, int capacity) {
+            this.firstGame = firstGame;
+            this.data = new byte[capacity];
+        }
+    }
+
+    //per import state shared by the workers
+    private class Run {
+        final LongAdder games = new LongAdder();
+        final LongAdder badGames = new LongAdder();
+        final LongAdder plies = new LongAdder();
+        final ConcurrentLinkedQueue<String> diagnostics = new ConcurrentLinkedQueue<>();
+        final AtomicInteger diagnosticCount = new AtomicInteger();
+        final ThreadLocal<Replayer> replayers = ThreadLocal.withInitial(() -> new Replayer(this));
+
+        void bad(long gameNumber, long offset, String reason) {
+            badGames.increment();
+            if (diagnosticCount.getAndIncrement() < MAX_DIAGNOSTICS) {
+                diagnostics.add("game " + gameNumber + " at byte " + offset + ": " + reason);
+            }
+        }
+    }
+
+    public Report importFile(Path path) throws IOException {
+        return importFile(path, null);
+    }
+
+    //progress, if not null, gets a line per second while importing
+    public Report importFile(Path path, PrintStream progress) throws IOException {
+        Run run = new Run();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 2), r -> {
+            Thread thread = new Thread(r, "pgn-worker");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.CallerRunsPolicy());
+
+        long start = System.currentTimeMillis();
+        long size;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            size = channel.size();
+            new Splitter(run, pool, progress, start).split(channel, size);
+        } finally {
+            pool.shutdown();
+        }
+        try {
+            pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        return new Report(run.games.sum(), run.badGames.sum(), run.plies.sum(), size,
+                System.currentTimeMillis() - start, new ArrayList<>(run.diagnostics));
+    }
+
+    //finds game boundaries: a tag line ("[...") after some movetext starts the next game.
+    //Braces, ';' comments and tag values are tracked so a '[' inside them doesn't count.
+    private class Splitter {
+        final Run run;
+        final ThreadPoolExecutor pool;
+        final PrintStream progress;
+        final long start;
+        long nextReport;
+
+        Batch batch;
+        long gameNumber = 1;
+        long gameOffset;
+        //bytes of the current game carried over from the previous window
+        byte[] pending = new byte[0];
+        int pendingSize;
+
+        boolean lineStart = true;
+        boolean inBrace;
+        boolean inLineComment;
+        boolean inTag;
+        boolean inTagString;
+        boolean escaped;
+        boolean sawMoves;
+
+        Splitter(Run run, ThreadPoolExecutor pool, PrintStream progress, long start) {
+            this.run = run;
+            this.pool = pool;
+            this.progress = progress;
+            this.start = start;
+            this.nextReport = start + 1000;
+        }
+
+        void split(FileChannel channel, long size) throws IOException {
+            for (long position = 0; position < size; position += windowSize) {
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(windowSize, size - position));
+                int limit = window.limit();
+                int gameStart = 0;
+
+                for (int i = 0; i < limit; i++) {
+                    byte b = window.get(i);
+                    if (b == '\n') {
+                        lineStart = true;
+                        inLineComment = false;
+                        inTag = false;
+                        continue;
+                    }
+                    if (inLineComment) {
+                        //nothing
+                    } else if (inBrace) {
+                        if (b == '}') inBrace = false;
+                    } else if (inTag) {
+                        if (escaped) {
+                            escaped = false;
+                        } else if (inTagString) {
+                            if (b == '\\') escaped = true;
+                            else if (b == '"') inTagString = false;
+                        } else if (b == '"') {
+                            inTagString = true;
+                        } else if (b == ']') {
+                            inTag = false;
+                        }
+                    } else if (b == '[' && lineStart) {
+                        if (sawMoves) {
+                            endGame(window, gameStart, i, position + i);
+                            gameStart = i;
+                        }
+                        inTag = true;
+                        inTagString = false;
+                    } else if (b == '%' && lineStart || b == ';') {
+                        inLineComment = true;
+                    } else if (b == '{') {
+                        inBrace = true;
+                    } else if (b > ' ') {
+                        sawMoves = true;
+                    }
+                    if (b != '\r') lineStart = false;
+                }
+
+                //the game running over the end of the window waits for the next one
+                appendPending(window, gameStart, limit);
+            }
+            if (sawMoves || pendingSize > 0) endGame(null, 0, 0, size);
+            if (batch != null && batch.count > 0) pool.execute(task(batch));
+        }
+
+        //the game from gameStart up to end of window, plus what was pending, is complete
+        void endGame(MappedByteBuffer window, int gameStart, int end, long nextGameOffset) {
+            int length = pendingSize + end - gameStart;
+            if (batch == null || batch.count == BATCH_GAMES || batch.size + length > batch.data.length) {
+                if (batch != null && batch.count > 0) pool.execute(task(batch));
+                batch = new Batch(gameNumber, Math.max(BATCH_BYTES, length));
+            }
+            System.arraycopy(pending, 0, batch.data, batch.size, pendingSize);
+            if (window != null) window.get(gameStart, batch.data, batch.size + pendingSize, end - gameStart);
+
+            batch.offsets[batch.count] = gameOffset;
+            batch.starts[batch.count++] = batch.size;
+            batch.size += length;
+            batch.starts[batch.count] = batch.size;
+
+            pendingSize = 0;
+            sawMoves = false;
+            gameNumber++;
+            gameOffset = nextGameOffset;
+
+            if (progress != null && System.currentTimeMillis() >= nextReport) {
+                long millis = System.currentTimeMillis() - start;
+                progress.println(run.games.sum() + " games, " + run.badGames.sum() + " bad, "
+                        + run.games.sum() * 1000 / Math.max(1, millis) + " games/sec");
+                nextReport += 1000;
+            }
+        }
+
+        Runnable task(Batch batch) {
+            return () -> {
+                Replayer replayer = run.replayers.get();
+                for (int g = 0; g < batch.count; g++) {
+                    replayer.replay(batch.data, batch.starts[g], batch.starts[g + 1], batch.firstGame + g, batch.offsets[g]);
+                }
+            };
+        }
+
+        void appendPending(MappedByteBuffer window, int from, int to) {
+            int length = to - from;
+            if (pendingSize + length > pending.length) {
+                pending = Arrays.copyOf(pending, Math.max(pendingSize + length, pending.length * 2));
+            }
+            window.get(from, pending, pendingSize, length);
+            pendingSize += length;
+        }
+    }
+
+    //one per worker thread, replays games on its own model
+    private class Replayer {
+        final Run run;
+        final ChessModel chessModel = new ChessModel();
+        final MoveList moves = new MoveList();
+        final AsciiSequence token = new AsciiSequence();
+
+        Replayer(Run run) {
+            this.run = run;
+        }
+
+        void replay(byte[] data, int start, int end, long gameNumber, long offset) {
+            chessModel.reset();
+            int plies = 0;
+            int i = start;
+            while (i < end) {
+                byte b = data[i];
+                if (b <= ' ') {
+                    i++;
+                } else if (b == '[') {
+                    //tag pair, only FEN matters
+                    int lineEnd = i;
+                    while (lineEnd < end && data[lineEnd] != '\n') lineEnd++;
+                    if (startsWith(data, i, lineEnd, "[FEN \"")) {
+                        int valueEnd = i + 6;
+                        while (valueEnd < lineEnd && data[valueEnd] != '"') valueEnd++;
+                        token.set(data, i + 6, valueEnd);
+                        try {
+                            chessModel.loadFen(token);
+                        } catch (IllegalArgumentException ex) {
+                            run.bad(gameNumber, offset, "bad FEN tag " + token);
+                            return;
+                        }
+                    }
+                    i = lineEnd;
+                } else if (b == '{') {
+                    while (i < end && data[i] != '}') i++;
+                    i++;
+                } else if (b == ';' || b == '%') {
+                    while (i < end && data[i] != '\n') i++;
+                } else if (b == '(') {
+                    i = skipVariation(data, i, end);
+                } else if (b == '$' || b == '*') {
+                    i = tokenEnd(data, i + 1, end);
+                } else if (b >= '0' && b <= '9' && !(b == '0' && i + 2 < end && data[i + 1] == '-' && data[i + 2] == '0')) {
+                    //move number "12." / "12...", or the result; "0-0" is castling
+                    i = tokenEnd(data, i, end);
+                } else {
+                    int tokenEnd = tokenEnd(data, i, end);
+                    token.set(data, i, tokenEnd);
+                    int move = San.parse(chessModel, token, moves);
+                    if (move < 0) {
+                        String reason = move == San.AMBIGUOUS ? "ambiguous" : move == San.ILLEGAL ? "illegal" : "unreadable";
+                        run.bad(gameNumber, offset, reason + " move " + token + " at ply " + (plies + 1));
+                        return;
+                    }
+                    chessModel.makeMove(move);
+                    plies++;
+                    i = tokenEnd;
+                }
+            }
+
+            run.games.increment();
+            run.plies.add(plies);
+            if (listener != null) listener.gameReplayed(gameNumber, chessModel);
+        }
+
+        //index after the matching ')', nested variations and comments skipped
+        private int skipVariation(byte[] data, int i, int end) {
+            int depth = 0;
+            for (; i < end; i++) {
+                byte b = data[i];
+                if (b == '(') {
+                    depth++;
+                } else if (b == ')') {
+                    if (--depth == 0) return i + 1;
+                } else if (b == '{') {
+                    while (i < end && data[i] != '}') i++;
+                } else if (b == ';') {
+                    while (i < end && data[i] != '\n') i++;
+                }
+            }
+            return end;
+        }
+
+        //SAN and move numbers end at whitespace or where a comment or variation starts
+        private int tokenEnd(byte[] data, int i, int end) {
+            while (i < end && data[i] > ' ' && data[i] != '{' && data[i] != '(' && data[i] != ')' && data[i] != ';') {
+                //"12.e4" has no space after the move number
+                if (data[i] == '.' && i + 1 < end && data[i + 1] != '.' && data[i + 1] > ' ') return i + 1;
+                i++;
+            }
+            return i;
+        }
+
+        private boolean startsWith(byte[] data, int i, int end, String prefix) {
+            if (end - i < prefix.length()) return false;
+            for (int k = 0; k < prefix.length(); k++) {
+                if (data[i + k] != prefix.charAt(k)) return false;
+            }
+            return true;
+        }
+    }
+
+    //an ASCII slice of a byte array seen as characters, reused for every token
+    private static class AsciiSequence implements CharSequence {
+        private byte[] data;
+        private int start;
+        private int end;
+
+        void set(byte[] data, int start, int end) {
+            this.data = data;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (data[start + index] & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return toString().substring(from, to);
+        }
+
+        @Override
+        public String toString() {
+            return new String(data, start, end - start, StandardCharsets.ISO_8859_1);
+        }
+    }
+
+    // usage: PgnImporter <file.pgn> [threads]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("usage: PgnImporter <file.pgn> [threads]");
+            return;
+        }
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+        Report report = new PgnImporter(threads).importFile(Path.of(args[0]), System.out);
+        System.out.println(report);
+        for (String diagnostic : report.getDiagnostics()) {
+            System.out.println("  " + diagnostic);
+        }
+        if (report.getBadGames() > report.getDiagnostics().size()) {
+            System.out.println("  ... and " + (report.getBadGames() - report.getDiagnostics().size()) + " more");
+        }
+    }
+}
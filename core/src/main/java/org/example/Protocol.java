@@ -0,0 +1,247 @@
+package org.example;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+
+//binary wire format shared by GameServer and its clients. Every frame is
+//  u16 length of the rest | u8 type | payload
+//big-endian, with a fixed payload per type except for the FEN at the end of SNAPSHOT.
+//Encoders write into the caller's buffer and decode fills a reusable Message, so nothing is
+//allocated per message on either side.
+//
+//  HELLO      version:u8                                   client -> server, first frame
+//  START      gameId:i32 player:u8 token:i64               server -> client, paired
+//  MOVE       gameId:i32 sequence:i32 move:u16 hash:i64    both ways
+//  ACK        gameId:i32 sequence:i32                      server -> mover, move accepted
+//  ERROR      gameId:i32 sequence:i32 code:u8              server -> client
+//  GAME_OVER  gameId:i32 reason:u8                         server -> client, then closed
+//  RESUME     version:u8 gameId:i32 token:i64              client -> server, first frame instead
+//                                                          of HELLO to take a seat back, or
+//                                                          later to ask for the position again
+//  SNAPSHOT   gameId:i32 player:u8 hash:i64 fen:ascii      server -> client, answer to RESUME
+//                                                          and WATCH, player SPECTATOR for the latter
+//  LEAVE      gameId:i32                                   client -> server, gives the game up
+//  WATCH      version:u8 gameId:i32                        client -> server, first frame of a
+//                                                          spectator, who then gets the game's
+//                                                          MOVEs and GAME_OVER
+//
+//The sequence of a move is the number of plies played before it and the hash is the
+//Zobrist key after it, so both sides notice when their boards drift apart. The move keeps
+//its Move flags, which tell castling, en passant and the promotion piece. The token in
+//START is what a player who lost the connection shows to get its seat back.
+public final class Protocol {
+
+    public static final int VERSION = 3;
+
+    public static final int HELLO = 1;
+    public static final int START = 2;
+    public static final int MOVE = 3;
+    public static final int ACK = 4;
+    public static final int ERROR = 5;
+    public static final int GAME_OVER = 6;
+    public static final int RESUME = 7;
+    public static final int SNAPSHOT = 8;
+    public static final int LEAVE = 9;
+    public static final int WATCH = 10;
+
+    //player in a SNAPSHOT to a spectator
+    public static final int SPECTATOR = 2;
+
+    //ERROR codes
+    public static final int BAD_MESSAGE = 1;
+    public static final int BAD_VERSION = 2;
+    public static final int NOT_YOUR_TURN = 3;
+    public static final int ILLEGAL_MOVE = 4;
+    public static final int OUT_OF_SEQUENCE = 5;
+    public static final int DESYNC = 6;
+    public static final int UNKNOWN_GAME = 7;
+
+    //GAME_OVER reasons
+    public static final int NO_LEGAL_MOVES = 1;
+    public static final int OPPONENT_LEFT = 2;
+    public static final int FIFTY_MOVES = 3;
+    public static final int REPETITION = 4;
+
+    //length prefix plus the largest frame, a SNAPSHOT with the longest FEN
+    public static final int MAX_FRAME_SIZE = 2 + 1 + 4 + 1 + 8 + ChessModel.MAX_FEN_LENGTH;
+
+    //for SNAPSHOT without the FEN
+    private static final int[] PAYLOAD_SIZES = {-1, 1, 13, 18, 8, 9, 5, 13, 13, 4, 5};
+
+    private Protocol() {
+    }
+
+    //decoded frame. Fields a type doesn't carry are left as they were.
+    public static final class Message {
+        public int type;
+        public int gameId;
+        public int sequence;
+        //16 bit Move, from/to/flags as in Move.of
+        public int move;
+        public long hash;
+        //version for HELLO, RESUME and WATCH, player for START and SNAPSHOT, error code, or game over reason
+        public int code;
+        public long token;
+        public final StringBuilder fen = new StringBuilder(ChessModel.MAX_FEN_LENGTH);
+    }
+
+    //reads one complete frame from in (in read mode) into message. Returns false and leaves
+    //in untouched if the frame hasn't fully arrived yet.
+    public static boolean decode(ByteBuffer in, Message message) throws ProtocolException {
+        if (in.remaining() < 3) return false;
+
+        int start = in.position();
+        int length = in.getShort(start) & 0xFFFF;
+        int type = in.get(start + 2) & 0xFF;
+        if (type >= PAYLOAD_SIZES.length || PAYLOAD_SIZES[type] < 0) {
+            throw new ProtocolException("Unknown message type " + type);
+        }
+        int fenLength = length - 1 - PAYLOAD_SIZES[type];
+        if (type == SNAPSHOT ? fenLength <= 0 || fenLength > ChessModel.MAX_FEN_LENGTH : fenLength != 0) {
+            throw new ProtocolException("Bad length " + length + " for message type " + type);
+        }
+        if (in.remaining() < 2 + length) return false;
+
+        in.position(start + 3);
+        message.type = type;
+        switch (type) {
+            case HELLO:
+                message.code = in.get() & 0xFF;
+                break;
+            case START:
+                message.gameId = in.getInt();
+                message.code = in.get() & 0xFF;
+                message.token = in.getLong();
+                break;
+            case MOVE:
+                message.gameId = in.getInt();
+                message.sequence = in.getInt();
+                message.move = in.getShort() & 0xFFFF;
+                message.hash = in.getLong();
+                break;
+            case ACK:
+                message.gameId = in.getInt();
+                message.sequence = in.getInt();
+                break;
+            case ERROR:
+                message.gameId = in.getInt();
+                message.sequence = in.getInt();
+                message.code = in.get() & 0xFF;
+                break;
+            case GAME_OVER:
+                message.gameId = in.getInt();
+                message.code = in.get() & 0xFF;
+                break;
+            case RESUME:
+                message.code = in.get() & 0xFF;
+                message.gameId = in.getInt();
+                message.token = in.getLong();
+                break;
+            case SNAPSHOT:
+                message.gameId = in.getInt();
+                message.code = in.get() & 0xFF;
+                message.hash = in.getLong();
+                message.fen.setLength(0);
+                for (int i = 0; i < fenLength; i++) {
+                    message.fen.append((char) (in.get() & 0xFF));
+                }
+                break;
+            case LEAVE:
+                message.gameId = in.getInt();
+                break;
+            case WATCH:
+                message.code = in.get() & 0xFF;
+                message.gameId = in.getInt();
+                break;
+        }
+        return true;
+    }
+
+    //encoders return false, writing nothing, when out has no room for the frame
+
+    public static boolean hello(ByteBuffer out) {
+        if (!header(out, HELLO)) return false;
+        out.put((byte) VERSION);
+        return true;
+    }
+
+    public static boolean start(ByteBuffer out, int gameId, Player player, long token) {
+        if (!header(out, START)) return false;
+        out.putInt(gameId).put((byte) player.ordinal()).putLong(token);
+        return true;
+    }
+
+    public static boolean move(ByteBuffer out, int gameId, int sequence, int move, long hash) {
+        if (!header(out, MOVE)) return false;
+        out.putInt(gameId).putInt(sequence).putShort((short) move).putLong(hash);
+        return true;
+    }
+
+    public static boolean ack(ByteBuffer out, int gameId, int sequence) {
+        if (!header(out, ACK)) return false;
+        out.putInt(gameId).putInt(sequence);
+        return true;
+    }
+
+    public static boolean error(ByteBuffer out, int gameId, int sequence, int code) {
+        if (!header(out, ERROR)) return false;
+        out.putInt(gameId).putInt(sequence).put((byte) code);
+        return true;
+    }
+
+    public static boolean gameOver(ByteBuffer out, int gameId, int reason) {
+        if (!header(out, GAME_OVER)) return false;
+        out.putInt(gameId).put((byte) reason);
+        return true;
+    }
+
+    public static boolean resume(ByteBuffer out, int gameId, long token) {
+        if (!header(out, RESUME)) return false;
+        out.put((byte) VERSION).putInt(gameId).putLong(token);
+        return true;
+    }
+
+    //player is a Player ordinal or SPECTATOR, fen plain ASCII of at most ChessModel.MAX_FEN_LENGTH characters
+    public static boolean snapshot(ByteBuffer out, int gameId, int player, long hash, CharSequence fen) {
+        if (fen.length() == 0 || fen.length() > ChessModel.MAX_FEN_LENGTH) {
+            throw new IllegalArgumentException("Bad FEN length " + fen.length());
+        }
+        if (!header(out, SNAPSHOT, PAYLOAD_SIZES[SNAPSHOT] + fen.length())) return false;
+        out.putInt(gameId).put((byte) player).putLong(hash);
+        for (int i = 0; i < fen.length(); i++) {
+            out.put((byte) fen.charAt(i));
+        }
+        return true;
+    }
+
+    public static boolean leave(ByteBuffer out, int gameId) {
+        if (!header(out, LEAVE)) return false;
+        out.putInt(gameId);
+        return true;
+    }
+
+    public static boolean watch(ByteBuffer out, int gameId) {
+        if (!header(out, WATCH)) return false;
+        out.put((byte) VERSION).putInt(gameId);
+        return true;
+    }
+
+    private static boolean header(ByteBuffer out, int type) {
+        return header(out, type, PAYLOAD_SIZES[type]);
+    }
+
+    private static boolean header(ByteBuffer out, int type, int payloadSize) {
+        if (out.remaining() < 3 + payloadSize) return false;
+        out.putShort((short) (1 + payloadSize)).put((byte) type);
+        return true;
+    }
+
+    //the legal move of chessModel matching a 16 bit wire move, or Move.NONE
+    static int findLegalMove(ChessModel chessModel, int wireMove, MoveList moves) {
+        chessModel.generateMovesFrom(Move.from(wireMove), moves);
+        for (int i = 0; i < moves.size(); i++) {
+            if (moves.get(i) == wireMove) return wireMove;
+        }
+        return Move.NONE;
+    }
+}
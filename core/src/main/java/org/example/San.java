@@ -0,0 +1,139 @@
+package org.example;
+
+//Standard Algebraic Notation ("Nbd7", "exd5", "O-O", "e8=Q+") for the current position of a model
+public final class San {
+
+    //parse failures, negative so they can't be mistaken for a move
+    public static final int INVALID = -1;
+    public static final int ILLEGAL = -2;
+    public static final int AMBIGUOUS = -3;
+
+    private static final String PIECE_LETTERS = "KQBRN";
+
+    private San() {
+    }
+
+    //the legal move san stands for, or INVALID / ILLEGAL / AMBIGUOUS. Check marks and
+    //annotations ("+", "#", "!?") are ignored. moves is scratch space.
+    public static int parse(ChessModel chessModel, CharSequence san, MoveList moves) {
+        int end = san.length();
+        while (end > 0 && "+#!?".indexOf(san.charAt(end - 1)) >= 0) end--;
+        if (end < 2) return INVALID;
+
+        int side = chessModel.getPlayerInTurn().ordinal();
+        int homeRow = side == 0 ? 0 : 7;
+        int rank;
+        int fromCol = -1;
+        int fromRow = -1;
+        int to;
+        //rank of the piece a pawn is promoted to, -1 for none
+        int promotion = -1;
+
+        if (isCastling(san, end)) {
+            //the king's own move, two squares towards the rook
+            rank = ChessModel.KING;
+            fromCol = 4;
+            fromRow = homeRow;
+            to = Bitboards.square(end >= 5 ? 2 : 6, homeRow);
+        } else {
+            int i = 0;
+            rank = PIECE_LETTERS.indexOf(san.charAt(0));
+            if (rank >= 0) {
+                i++;
+            } else {
+                rank = ChessModel.PAWN;
+            }
+
+            //"e8=Q", or "e8Q" without the sign
+            if (rank == ChessModel.PAWN && "QRBN".indexOf(san.charAt(end - 1)) >= 0) {
+                promotion = PIECE_LETTERS.indexOf(san.charAt(end - 1));
+                end -= san.charAt(end - 2) == '=' ? 2 : 1;
+            } else if (san.charAt(end - 2) == '=') {
+                return INVALID;
+            }
+
+            if (end - i < 2) return INVALID;
+            int toCol = san.charAt(end - 2) - 'a';
+            int toRow = san.charAt(end - 1) - '1';
+            if (!Bitboards.onBoard(toCol, toRow)) return INVALID;
+            to = Bitboards.square(toCol, toRow);
+
+            //disambiguation, capture mark, and the from square of long algebraic "Ng1-f3"
+            for (int j = i; j < end - 2; j++) {
+                char c = san.charAt(j);
+                if (c >= 'a' && c <= 'h') {
+                    fromCol = c - 'a';
+                } else if (c >= '1' && c <= '8') {
+                    fromRow = c - '1';
+                } else if (c != 'x' && c != ':' && c != '-') {
+                    return INVALID;
+                }
+            }
+        }
+
+        //only the pieces that could be meant are asked for their moves
+        long fromMask = chessModel.getPieceBoard(side * 6 + rank);
+        if (fromCol >= 0) fromMask &= Bitboards.FILE_A << fromCol;
+        if (fromRow >= 0) fromMask &= Bitboards.RANK_1 << (fromRow * 8);
+
+        int found = ILLEGAL;
+        int count = fromMask == 0 ? 0 : chessModel.generateLegalMoves(fromMask, moves);
+        for (int k = 0; k < count; k++) {
+            int move = moves.get(k);
+            if (Move.to(move) != to) continue;
+            //a pawn reaching the last row has to say what it becomes
+            if (Move.isPromotion(move) ? Move.promotionRank(move) != promotion : promotion >= 0) continue;
+            if (found >= 0) return AMBIGUOUS;
+            found = move;
+        }
+        return found;
+    }
+
+    private static boolean isCastling(CharSequence san, int end) {
+        if (end != 3 && end != 5) return false;
+        for (int i = 0; i < end; i++) {
+            char c = san.charAt(i);
+            if (i % 2 == 1 ? c != '-' : c != 'O' && c != '0') return false;
+        }
+        return true;
+    }
+
+    //SAN of a legal move, with "+" or "#" when it gives check or mate. moves is scratch space.
+    public static String format(ChessModel chessModel, int move, MoveList moves) {
+        StringBuilder san = new StringBuilder(8);
+        int from = Move.from(move);
+        int to = Move.to(move);
+        int rank = chessModel.pieceCodeAt(from) % 6;
+
+        if (Move.isCastling(move)) {
+            san.append(Move.flags(move) == Move.KING_CASTLE ? "O-O" : "O-O-O");
+        } else if (rank == ChessModel.PAWN) {
+            if (Move.isCapture(move)) san.append((char) ('a' + Bitboards.col(from))).append('x');
+        } else {
+            san.append(PIECE_LETTERS.charAt(rank));
+            //another piece of the same kind could also go there: add its file, its rank, or both
+            boolean clash = false, sameCol = false, sameRow = false;
+            long others = chessModel.getPieceBoard(chessModel.pieceCodeAt(from)) & ~Bitboards.bit(from);
+            int count = others == 0 ? 0 : chessModel.generateLegalMoves(others, moves);
+            for (int k = 0; k < count; k++) {
+                int other = Move.from(moves.get(k));
+                if (Move.to(moves.get(k)) != to) continue;
+                clash = true;
+                sameCol |= Bitboards.col(other) == Bitboards.col(from);
+                sameRow |= Bitboards.row(other) == Bitboards.row(from);
+            }
+            if (clash && (!sameCol || sameRow)) san.append((char) ('a' + Bitboards.col(from)));
+            if (clash && sameCol) san.append((char) ('1' + Bitboards.row(from)));
+            if (Move.isCapture(move)) san.append('x');
+        }
+        if (!Move.isCastling(move)) san.append(Move.squareName(to));
+        if (Move.isPromotion(move)) san.append('=').append(PIECE_LETTERS.charAt(Move.promotionRank(move)));
+
+        chessModel.makeMove(move);
+        if (chessModel.isInCheck(chessModel.getPlayerInTurn())) {
+            san.append(chessModel.generateLegalMoves(moves) == 0 ? '#' : '+');
+        }
+        chessModel.unmakeMove();
+        return san.toString();
+    }
+}
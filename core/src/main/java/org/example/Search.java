@@ -0,0 +1,349 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+//negamax alpha-beta with iterative deepening, aspiration windows, quiescence search
+//and null-move pruning. Searches its own copy of the position, so the caller's model
+//can keep being used (e.g. by the GUI) while it runs.
+public class Search {
+
+    public static final int INFINITY = 32000;
+    public static final int MATE = 30000;
+    //scores beyond this are mates, measured in plies from the root
+    static final int MATE_BOUND = MATE - 1000;
+    //a won endgame found in the bitbases, plus the evaluation so the search still prefers better wins
+    static final int KNOWN_WIN = 20000;
+
+    private static final int MAX_PLY = 128;
+    private static final int ASPIRATION_WINDOW = 35;
+    private static final int NULL_MOVE_REDUCTION = 2;
+    //how many nodes between clock checks
+    private static final int CHECK_INTERVAL = 2048;
+
+    private final ChessModel chessModel = new ChessModel();
+    private final TranspositionTable table;
+    //0 for the main search, helpers of a parallel search count up from 1
+    private final int threadId;
+
+    private final MoveList[] moveLists = new MoveList[MAX_PLY + 1];
+    private final int[][] moveScores = new int[MAX_PLY + 1][MoveList.CAPACITY];
+    private final int[][] killers = new int[MAX_PLY + 1][2];
+    private final int[][] history = new int[2][64 * 64];
+
+    //a limit was hit or abort was set, seen at the last check
+    private boolean stopped;
+    //stop signal of this search, shared by all threads of a parallel search
+    private volatile AtomicBoolean abort;
+    private SearchLimits limits;
+    private long startNanos;
+    private long nodes;
+    private int rootBestMove;
+    private int completedDepth;
+    private Bitbases bitbases;
+    //what the bitbases say about the root, UNKNOWN when they don't cover it
+    private int rootBitbase;
+    //neural evaluation of chessModel, null for Evaluation's tables
+    private NnueAccumulator accumulator;
+
+    public Search(TranspositionTable table) {
+        this(table, 0);
+    }
+
+    Search(TranspositionTable table, int threadId) {
+        this.table = table;
+        this.threadId = threadId;
+        for (int i = 0; i <= MAX_PLY; i++) {
+            moveLists[i] = new MoveList();
+        }
+    }
+
+    //endgame tables to consult, null for none
+    public void setBitbases(Bitbases bitbases) {
+        this.bitbases = bitbases;
+    }
+
+    //network to evaluate with, null for Evaluation's tables
+    public void setNetwork(Nnue network) {
+        accumulator = network == null ? null : new NnueAccumulator(network);
+        chessModel.setAccumulator(accumulator);
+    }
+
+    public SearchResult search(ChessModel position, SearchLimits limits) {
+        return search(position, limits, null);
+    }
+
+    //runs until a limit is hit or stop() is called, reporting every completed depth to listener
+    public SearchResult search(ChessModel position, SearchLimits limits, Consumer<SearchResult> listener) {
+        return search(position, limits, listener, new AtomicBoolean());
+    }
+
+    SearchResult search(ChessModel position, SearchLimits limits, Consumer<SearchResult> listener, AtomicBoolean abort) {
+        chessModel.copyFrom(position);
+        this.limits = limits;
+        this.abort = abort;
+        stopped = false;
+        if (threadId == 0) table.newSearch();
+        startNanos = System.nanoTime();
+        nodes = 0;
+        completedDepth = 0;
+        rootBestMove = Move.NONE;
+        rootBitbase = bitbases == null ? Bitbases.UNKNOWN : bitbases.probe(chessModel);
+        for (int[] k : killers) {
+            k[0] = Move.NONE;
+            k[1] = Move.NONE;
+        }
+        for (int[] h : history) {
+            Arrays.fill(h, 0);
+        }
+
+        SearchResult result = new SearchResult(Move.NONE, 0, 0, 0, 0);
+        int score = 0;
+
+        //odd helpers start one ply deeper so the threads spread over different depths
+        int startDepth = 1 + (threadId & 1);
+        for (int depth = startDepth; depth <= limits.getDepth(); depth++) {
+            int delta = ASPIRATION_WINDOW;
+            int alpha = depth >= 4 ? Math.max(score - delta, -INFINITY) : -INFINITY;
+            int beta = depth >= 4 ? Math.min(score + delta, INFINITY) : INFINITY;
+
+            while (true) {
+                int value = negamax(depth, alpha, beta, 0, false);
+                if (stopped) break;
+
+                //outside the window, search again with a wider one
+                if (value <= alpha) {
+                    alpha = Math.max(value - delta, -INFINITY);
+                } else if (value >= beta) {
+                    beta = Math.min(value + delta, INFINITY);
+                } else {
+                    score = value;
+                    break;
+                }
+                delta *= 2;
+            }
+            if (stopped) break;
+
+            completedDepth = depth;
+            result = new SearchResult(rootBestMove, score, depth, nodes, elapsedMillis());
+            if (listener != null) listener.accept(result);
+
+            if (threadId > 0) continue;
+            if (rootBestMove == Move.NONE || Math.abs(score) > MATE_BOUND) break;
+            //another iteration would take longer than what is left
+            if (elapsedMillis() * 2 > limits.getTimeMillis()) break;
+        }
+
+        return result;
+    }
+
+    //stops the running search; a ParallelSearch is stopped through its own stop()
+    public void stop() {
+        AtomicBoolean abort = this.abort;
+        if (abort != null) abort.set(true);
+    }
+
+    //read from other threads while searching, so only approximate until the search has returned
+    public long getNodes() {
+        return nodes;
+    }
+
+    private long elapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    private void checkLimits() {
+        //the main search always finishes depth 1 so there is a move to play
+        if (completedDepth == 0 && threadId == 0) return;
+        if (abort.get() || nodes >= limits.getNodes() || elapsedMillis() >= limits.getTimeMillis()) {
+            stopped = true;
+        }
+    }
+
+    private int negamax(int depth, int alpha, int beta, int ply, boolean afterNullMove) {
+        if (ply > 0 && (chessModel.isRepetition() || chessModel.getHalfmoveClock() >= ChessModel.FIFTY_MOVE_PLIES)) return 0;
+
+        //exact results for endgames reached by captures from a bigger root. A root that is already
+        //in the tables is searched on, so mates are still found, with its moves filtered below.
+        if (ply > 0 && rootBitbase == Bitbases.UNKNOWN && bitbases != null) {
+            int result = bitbases.probe(chessModel);
+            if (result == Bitbases.DRAW) return 0;
+            if (result != Bitbases.UNKNOWN) {
+                return (result == Bitbases.WIN ? KNOWN_WIN : -KNOWN_WIN) + evaluate();
+            }
+        }
+
+        boolean inCheck = chessModel.isInCheck(chessModel.getPlayerInTurn());
+        if (inCheck && ply < MAX_PLY / 2) depth++;
+        if (depth <= 0 || ply >= MAX_PLY) return quiesce(alpha, beta, ply);
+
+        if (++nodes % CHECK_INTERVAL == 0) checkLimits();
+        if (stopped) return 0;
+
+        long key = chessModel.getHash();
+        long entry = table.probe(key);
+        int ttMove = TranspositionTable.move(entry);
+        if (entry != TranspositionTable.MISS && ply > 0 && TranspositionTable.depth(entry) >= depth) {
+            int ttScore = fromTable(TranspositionTable.score(entry), ply);
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.BOUND_EXACT
+                    || (bound == TranspositionTable.BOUND_LOWER && ttScore >= beta)
+                    || (bound == TranspositionTable.BOUND_UPPER && ttScore <= alpha)) {
+                return ttScore;
+            }
+        }
+
+        //give the opponent a free move, if we are still above beta the node is not worth searching
+        if (!afterNullMove && !inCheck && ply > 0 && depth >= 3 && beta < MATE_BOUND
+                && Evaluation.hasPieces(chessModel, chessModel.getPlayerInTurn())
+                && evaluate() >= beta) {
+            chessModel.makeNullMove();
+            int value = -negamax(depth - 1 - NULL_MOVE_REDUCTION, -beta, -beta + 1, ply + 1, true);
+            chessModel.unmakeNullMove();
+            if (stopped) return 0;
+            if (value >= beta) return beta;
+        }
+
+        MoveList moves = moveLists[ply];
+        int count = chessModel.generateLegalMoves(moves);
+        if (count == 0) {
+            return inCheck ? -MATE + ply : 0;
+        }
+        scoreMoves(moves, moveScores[ply], ttMove, ply);
+
+        int side = chessModel.getPlayerInTurn().ordinal();
+        int bestMove = Move.NONE;
+        int bestScore = -INFINITY;
+        int originalAlpha = alpha;
+
+        for (int i = 0; i < count; i++) {
+            int move = pickNext(moves, moveScores[ply], i);
+
+            chessModel.makeMove(move);
+            if (ply == 0 && rootBitbase != Bitbases.UNKNOWN && spoilsResult(bitbases.probe(chessModel))) {
+                chessModel.unmakeMove();
+                continue;
+            }
+            int value = -negamax(depth - 1, -beta, -alpha, ply + 1, false);
+            chessModel.unmakeMove();
+            if (stopped) return 0;
+
+            if (value > bestScore) {
+                bestScore = value;
+                bestMove = move;
+                if (ply == 0) rootBestMove = move;
+            }
+            if (value > alpha) {
+                alpha = value;
+            }
+            if (alpha >= beta) {
+                if (!Move.isCapture(move)) {
+                    if (killers[ply][0] != move) {
+                        killers[ply][1] = killers[ply][0];
+                        killers[ply][0] = move;
+                    }
+                    history[side][move & 0xFFF] += depth * depth;
+                }
+                break;
+            }
+        }
+
+        int bound = bestScore >= beta ? TranspositionTable.BOUND_LOWER
+                : bestScore > originalAlpha ? TranspositionTable.BOUND_EXACT
+                : TranspositionTable.BOUND_UPPER;
+        table.store(key, bestMove, toTable(bestScore, ply), depth, bound);
+        return bestScore;
+    }
+
+    //true if a root move leads to worse than the bitbases promise, result is the opponent's
+    private boolean spoilsResult(int result) {
+        if (rootBitbase == Bitbases.WIN) return result == Bitbases.DRAW || result == Bitbases.WIN;
+        if (rootBitbase == Bitbases.DRAW) return result == Bitbases.WIN;
+        return false;
+    }
+
+    //only captures until the position is quiet, so the evaluation is not taken in the middle of an exchange
+    private int quiesce(int alpha, int beta, int ply) {
+        if (++nodes % CHECK_INTERVAL == 0) checkLimits();
+        if (stopped) return 0;
+
+        int standPat = evaluate();
+        if (standPat >= beta || ply >= MAX_PLY) return standPat;
+        if (standPat > alpha) alpha = standPat;
+
+        MoveList moves = moveLists[ply];
+        int count = chessModel.generateLegalCaptures(moves);
+        scoreMoves(moves, moveScores[ply], Move.NONE, ply);
+
+        for (int i = 0; i < count; i++) {
+            int move = pickNext(moves, moveScores[ply], i);
+
+            chessModel.makeMove(move);
+            int value = -quiesce(-beta, -alpha, ply + 1);
+            chessModel.unmakeMove();
+            if (stopped) return 0;
+
+            if (value >= beta) return value;
+            if (value > alpha) alpha = value;
+        }
+        return alpha;
+    }
+
+    //hash move first, then captures by most valuable victim / least valuable attacker,
+    //then queen promotions, killers and quiet moves by history
+    private void scoreMoves(MoveList moves, int[] scores, int ttMove, int ply) {
+        int side = chessModel.getPlayerInTurn().ordinal();
+        for (int i = 0; i < moves.size(); i++) {
+            int move = moves.get(i);
+            if (move == ttMove) {
+                scores[i] = 1_000_000;
+            } else if (Move.isCapture(move)) {
+                //the pawn taken en passant isn't on the square moved to
+                int victim = Move.flags(move) == Move.EN_PASSANT ? ChessModel.PAWN : chessModel.pieceCodeAt(Move.to(move)) % 6;
+                int attacker = chessModel.pieceCodeAt(Move.from(move)) % 6;
+                scores[i] = 100_000 + Evaluation.PIECE_VALUES[victim] * 10 - Evaluation.PIECE_VALUES[attacker] / 10;
+            } else if (Move.isPromotion(move) && Move.promotionRank(move) == ChessModel.QUEEN) {
+                scores[i] = 95_000;
+            } else if (move == killers[ply][0]) {
+                scores[i] = 90_000;
+            } else if (move == killers[ply][1]) {
+                scores[i] = 80_000;
+            } else {
+                scores[i] = Math.min(history[side][move & 0xFFF], 70_000);
+            }
+        }
+    }
+
+    //selection sort step: swaps the best remaining move into position i
+    private static int pickNext(MoveList moves, int[] scores, int i) {
+        int best = i;
+        for (int j = i + 1; j < moves.size(); j++) {
+            if (scores[j] > scores[best]) best = j;
+        }
+        if (best != i) {
+            moves.swap(i, best);
+            int s = scores[i];
+            scores[i] = scores[best];
+            scores[best] = s;
+        }
+        return moves.get(i);
+    }
+
+    //mate scores are stored relative to the node, not the root
+    private static int toTable(int score, int ply) {
+        if (score > MATE_BOUND) return score + ply;
+        if (score < -MATE_BOUND) return score - ply;
+        return score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        if (score > MATE_BOUND) return score - ply;
+        if (score < -MATE_BOUND) return score + ply;
+        return score;
+    }
+
+    private int evaluate() {
+        return accumulator == null ? Evaluation.evaluate(chessModel) : accumulator.evaluate(chessModel.getPlayerInTurn());
+    }
+}
@@ -0,0 +1,132 @@
+package org.example;
+
+import java.util.Arrays;
+
+//fixed size hash table of search results, shared by any number of threads without locks.
+//Each entry is two longs: the packed data and the key xor'ed with that data. A reader
+//only accepts an entry when key ^ data matches its own key, so an entry torn by two
+//threads writing at once reads as a miss instead of as a wrong result.
+public class TranspositionTable {
+
+    public static final int BOUND_EXACT = 1;
+    public static final int BOUND_LOWER = 2;  //score >= stored score (fail high)
+    public static final int BOUND_UPPER = 3;  //score <= stored score (fail low)
+
+    public static final long MISS = 0L;
+
+    //entries are grouped in buckets of two: one kept by depth, one always replaced
+    private static final int BUCKET = 2;
+    private static final int ENTRY_BYTES = 16;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+
+    //search generation, lets a new search overwrite entries from older ones first
+    private volatile int age;
+
+    public TranspositionTable(int sizeMb) {
+        if (sizeMb < 1) throw new IllegalArgumentException("Size must be at least 1 MB: " + sizeMb);
+
+        //largest power of two number of entries that fits
+        long entries = Long.highestOneBit((long) sizeMb * 1024 * 1024 / ENTRY_BYTES);
+        entries = Math.min(entries, 1L << 30);
+        keys = new long[(int) entries];
+        data = new long[(int) entries];
+        mask = (int) entries - BUCKET;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(data, 0L);
+        age = 0;
+    }
+
+    public void newSearch() {
+        age = (age + 1) & 63;
+    }
+
+    //packed entry for key, or MISS
+    public long probe(long key) {
+        int index = (int) key & mask;
+        for (int i = index; i < index + BUCKET; i++) {
+            long d = data[i];
+            if ((keys[i] ^ d) == key && d != MISS) {
+                return d;
+            }
+        }
+        return MISS;
+    }
+
+    public void store(long key, int move, int score, int depth, int bound) {
+        int index = (int) key & mask;
+        int slot = index;
+        long old = MISS;
+
+        for (int i = index; i < index + BUCKET; i++) {
+            long d = data[i];
+            if ((keys[i] ^ d) == key) {
+                slot = i;
+                old = d;
+                break;
+            }
+            //first slot keeps deeper results from the current search, otherwise use the second
+            if (i == index && d != MISS && age(d) == age && depth(d) > depth) {
+                slot = index + 1;
+            }
+        }
+
+        //keep the old best move when this result has none
+        if (move == Move.NONE && old != MISS) {
+            move = move(old);
+        }
+
+        long d = pack(move, score, depth, bound, age);
+        data[slot] = d;
+        keys[slot] = key ^ d;
+    }
+
+    //permille of the first thousand entries written in the current search, for UCI "hashfull"
+    public int hashfull() {
+        int used = 0;
+        int n = Math.min(1000, data.length);
+        for (int i = 0; i < n; i++) {
+            long d = data[i];
+            if (d != MISS && age(d) == age) used++;
+        }
+        return used * 1000 / n;
+    }
+
+    //data layout: move 0-15, score 16-31, depth 32-39, bound 40-41, age 42-47
+    private static long pack(int move, int score, int depth, int bound, int age) {
+        return (move & 0xFFFFL)
+                | ((score & 0xFFFFL) << 16)
+                | ((long) (depth & 0xFF) << 32)
+                | ((long) bound << 40)
+                | ((long) age << 42);
+    }
+
+    public static int move(long entry) {
+        return (int) (entry & 0xFFFF);
+    }
+
+    public static int score(long entry) {
+        return (short) (entry >>> 16);
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> 32) & 0xFF;
+    }
+
+    public static int bound(long entry) {
+        return (int) (entry >>> 40) & 3;
+    }
+
+    private static int age(long entry) {
+        return (int) (entry >>> 42) & 63;
+    }
+}
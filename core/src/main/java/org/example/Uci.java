@@ -0,0 +1,355 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+//Universal Chess Interface front end: reads commands from stdin and answers on stdout,
+//so the engine can run under tournament managers and GUIs without any AWT.
+//The search runs on its own thread, so "stop" and "isready" are answered while thinking.
+public class Uci {
+
+    private static final String NAME = "untitled1";
+    private static final int DEFAULT_HASH_MB = 16;
+    private static final int MAX_HASH_MB = 4096;
+    private static final int MAX_THREADS = 256;
+    //a little kept back from the clock for the GUI and the pipe
+    private static final long MOVE_OVERHEAD_MILLIS = 30;
+    private static final String[] BITBASE_RESULTS = {"unknown", "draw", "win", "loss"};
+
+    private final BufferedReader in;
+    private final PrintStream out;
+    private final ChessModel chessModel = new ChessModel();
+    private final MoveList moves = new MoveList();
+    private final ExecutorService searchExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "uci-search");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private int hashMb = DEFAULT_HASH_MB;
+    private int threads = 1;
+    //built on first use, so "uci" is answered before any table is allocated
+    private TranspositionTable table;
+    private ParallelSearch search;
+    private Future<?> searching;
+    private OpeningBook book;
+    private Bitbases bitbases;
+    private Nnue network;
+    private boolean ownBook = true;
+    private final Random bookRandom = new Random();
+
+    public Uci(InputStream in, PrintStream out) {
+        this.in = new BufferedReader(new InputStreamReader(in));
+        this.out = out;
+        chessModel.reset();
+    }
+
+    //reads commands until "quit" or the end of input
+    public void run() throws IOException {
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                try {
+                    if (!handle(line.trim())) break;
+                } catch (NumberFormatException ex) {
+                    send("info string bad number in " + line);
+                }
+            }
+        } finally {
+            stopSearch();
+            if (search != null) search.shutdown();
+            searchExecutor.shutdownNow();
+        }
+    }
+
+    //returns false on quit
+    boolean handle(String line) {
+        String[] tokens = line.split("\\s+");
+        switch (tokens[0]) {
+            case "uci":
+                send("id name " + NAME);
+                send("id author the " + NAME + " authors");
+                send("option name Hash type spin default " + DEFAULT_HASH_MB + " min 1 max " + MAX_HASH_MB);
+                send("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                send("option name OwnBook type check default true");
+                send("option name BookFile type string default <empty>");
+                send("option name BitbasePath type string default <empty>");
+                send("option name EvalFile type string default <empty>");
+                send("uciok");
+                break;
+            case "isready":
+                send("readyok");
+                break;
+            case "setoption":
+                setOption(tokens);
+                break;
+            case "ucinewgame":
+                stopSearch();
+                if (table != null) table.clear();
+                break;
+            case "position":
+                stopSearch();
+                position(tokens);
+                break;
+            case "go":
+                go(tokens);
+                break;
+            case "stop":
+                stopSearch();
+                break;
+            case "quit":
+                return false;
+            //not UCI, handy when typing at the engine
+            case "d":
+                send(chessModel.toString());
+                send("Fen: " + chessModel.toFen());
+                int result = bitbases == null ? Bitbases.UNKNOWN : bitbases.probe(chessModel);
+                if (result != Bitbases.UNKNOWN) send("Bitbase: " + BITBASE_RESULTS[result]);
+                break;
+            case "book":
+                if (book == null) {
+                    send("info string no book");
+                } else {
+                    for (OpeningBook.BookMove bookMove : book.lookup(chessModel, moves)) {
+                        send("info string book " + bookMove);
+                    }
+                }
+                break;
+            case "perft":
+                stopSearch();
+                int depth = tokens.length > 1 ? Integer.parseInt(tokens[1]) : 1;
+                if (depth < 1) {
+                    send("info string perft depth must be at least 1");
+                    break;
+                }
+                new Perft(chessModel, depth).divide(depth, out);
+                break;
+            default:
+                if (!line.isEmpty()) send("info string unknown command " + line);
+        }
+        return true;
+    }
+
+    // setoption name <id> value <x>
+    private void setOption(String[] tokens) {
+        if (tokens.length < 5 || !tokens[1].equals("name") || !tokens[3].equals("value")) return;
+        stopSearch();
+        if (tokens[2].equalsIgnoreCase("BookFile")) {
+            setBook(String.join(" ", Arrays.copyOfRange(tokens, 4, tokens.length)));
+            return;
+        } else if (tokens[2].equalsIgnoreCase("BitbasePath")) {
+            setBitbases(String.join(" ", Arrays.copyOfRange(tokens, 4, tokens.length)));
+            return;
+        } else if (tokens[2].equalsIgnoreCase("EvalFile")) {
+            setNetwork(String.join(" ", Arrays.copyOfRange(tokens, 4, tokens.length)));
+            return;
+        } else if (tokens[2].equalsIgnoreCase("OwnBook")) {
+            ownBook = Boolean.parseBoolean(tokens[4]);
+            return;
+        }
+        try {
+            int value = Integer.parseInt(tokens[4]);
+            if (tokens[2].equalsIgnoreCase("Hash")) {
+                hashMb = Math.max(1, Math.min(value, MAX_HASH_MB));
+                table = null;
+            } else if (tokens[2].equalsIgnoreCase("Threads")) {
+                threads = Math.max(1, Math.min(value, MAX_THREADS));
+            } else {
+                return;
+            }
+        } catch (NumberFormatException ex) {
+            send("info string bad value " + tokens[4]);
+            return;
+        }
+        if (search != null) search.shutdown();
+        search = null;
+    }
+
+    private void setBook(String path) {
+        book = null;
+        if (path.isEmpty() || path.equals("<empty>")) return;
+        try {
+            book = OpeningBook.open(Path.of(path));
+        } catch (IOException ex) {
+            send("info string can't open book " + path + ": " + ex.getMessage());
+        }
+    }
+
+    private void setBitbases(String path) {
+        bitbases = null;
+        if (!path.isEmpty() && !path.equals("<empty>")) {
+            try {
+                bitbases = Bitbases.open(Path.of(path));
+            } catch (IOException ex) {
+                send("info string can't open bitbases " + path + ": " + ex.getMessage());
+            }
+        }
+        if (search != null) search.setBitbases(bitbases);
+    }
+
+    private void setNetwork(String path) {
+        network = null;
+        if (!path.isEmpty() && !path.equals("<empty>")) {
+            try {
+                network = Nnue.load(Path.of(path));
+                send("info string network " + network.getHidden() + " hidden, "
+                        + (Nnue.VECTOR_AVAILABLE ? "vector" : "scalar, no --add-modules jdk.incubator.vector"));
+            } catch (IOException ex) {
+                send("info string can't open network " + path + ": " + ex.getMessage());
+            }
+        }
+        if (search != null) search.setNetwork(network);
+    }
+
+    // position [startpos | fen <fen>] [moves <move>...]
+    private void position(String[] tokens) {
+        int i = 1;
+        if (i < tokens.length && tokens[i].equals("startpos")) {
+            chessModel.reset();
+            i++;
+        } else if (i < tokens.length && tokens[i].equals("fen")) {
+            StringBuilder fen = new StringBuilder();
+            for (i++; i < tokens.length && !tokens[i].equals("moves"); i++) {
+                fen.append(tokens[i]).append(' ');
+            }
+            try {
+                chessModel.loadFen(fen);
+            } catch (IllegalArgumentException ex) {
+                send("info string bad fen " + ex.getMessage());
+                chessModel.reset();
+                return;
+            }
+        }
+
+        if (i < tokens.length && tokens[i].equals("moves")) {
+            for (i++; i < tokens.length; i++) {
+                int move = findUciMove(tokens[i]);
+                if (move == Move.NONE) {
+                    send("info string illegal move " + tokens[i]);
+                    return;
+                }
+                chessModel.makeMove(move);
+            }
+        }
+    }
+
+    private int findUciMove(String uci) {
+        chessModel.generateLegalMoves(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            if (Move.toUci(moves.get(i)).equals(uci)) return moves.get(i);
+        }
+        return Move.NONE;
+    }
+
+    // go [depth n] [nodes n] [movetime ms] [wtime ms btime ms winc ms binc ms movestogo n] [infinite]
+    private void go(String[] tokens) {
+        stopSearch();
+
+        //book moves are answered at once, except when the GUI wants an analysis that runs until stop
+        if (ownBook && book != null && !Arrays.asList(tokens).contains("infinite")) {
+            int bookMove = book.pickMove(chessModel, moves, bookRandom);
+            if (bookMove != Move.NONE) {
+                send("bestmove " + Move.toUci(bookMove));
+                return;
+            }
+        }
+
+        int depth = SearchLimits.MAX_DEPTH;
+        long nodes = Long.MAX_VALUE;
+        long moveTime = Long.MAX_VALUE;
+        long time = -1, increment = 0;
+        int movesToGo = 0;
+        boolean white = chessModel.getPlayerInTurn() == Player.WHITE;
+        for (int i = 1; i + 1 < tokens.length; i++) {
+            String value = tokens[i + 1];
+            switch (tokens[i]) {
+                case "depth": depth = Integer.parseInt(value); break;
+                case "nodes": nodes = Long.parseLong(value); break;
+                case "movetime": moveTime = Long.parseLong(value); break;
+                case "wtime": if (white) time = Long.parseLong(value); break;
+                case "btime": if (!white) time = Long.parseLong(value); break;
+                case "winc": if (white) increment = Long.parseLong(value); break;
+                case "binc": if (!white) increment = Long.parseLong(value); break;
+                case "movestogo": movesToGo = Integer.parseInt(value); break;
+                default: continue;
+            }
+            i++;
+        }
+        //spread the clock over the moves left, assuming 30 when the GUI doesn't say
+        if (time >= 0) {
+            long budget = time / (movesToGo > 0 ? movesToGo : 30) + increment * 3 / 4;
+            moveTime = Math.min(moveTime, Math.max(1, Math.min(budget, time - MOVE_OVERHEAD_MILLIS)));
+        }
+        SearchLimits limits = new SearchLimits(depth, nodes, moveTime);
+
+        if (table == null) table = new TranspositionTable(hashMb);
+        if (search == null) {
+            search = new ParallelSearch(table, threads);
+            search.setBitbases(bitbases);
+            search.setNetwork(network);
+        }
+        ParallelSearch search = this.search;
+        ChessModel position = new ChessModel();
+        position.copyFrom(chessModel);
+        //"stop" may come before the executor has started the search
+        search.prepareSearch();
+
+        searching = searchExecutor.submit(() -> {
+            SearchResult result = search.search(position, limits, this::sendInfo);
+            int bestMove = result.getBestMove();
+            //stopped before depth 1 finished, any legal move beats none
+            MoveList legal = new MoveList();
+            if (bestMove == Move.NONE && position.generateLegalMoves(legal) > 0) bestMove = legal.get(0);
+            send("bestmove " + (bestMove == Move.NONE ? "0000" : Move.toUci(bestMove)));
+        });
+    }
+
+    private void sendInfo(SearchResult result) {
+        int score = result.getScore();
+        String scoreText;
+        if (Math.abs(score) > Search.MATE_BOUND) {
+            //mate in moves, not plies, negative when we are getting mated
+            int plies = Search.MATE - Math.abs(score);
+            scoreText = "mate " + (score > 0 ? (plies + 1) / 2 : -(plies + 1) / 2);
+        } else {
+            scoreText = "cp " + score;
+        }
+        send("info depth " + result.getDepth() + " score " + scoreText + " nodes " + result.getNodes()
+                + " nps " + result.getNps() + " time " + result.getTimeMillis()
+                + (result.getBestMove() == Move.NONE ? "" : " pv " + Move.toUci(result.getBestMove())));
+    }
+
+    //waits for a running search to print its bestmove
+    private void stopSearch() {
+        if (searching == null) return;
+        search.stop();
+        try {
+            searching.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException ex) {
+            ex.printStackTrace();
+        }
+        searching = null;
+    }
+
+    private synchronized void send(String line) {
+        out.println(line);
+        out.flush();
+    }
+
+    public static void main(String[] args) throws IOException {
+        Metrics.start();
+        new Uci(System.in, System.out).run();
+    }
+}
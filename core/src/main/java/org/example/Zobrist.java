@@ -0,0 +1,42 @@
+package org.example;
+
+import java.util.SplittableRandom;
+
+//random keys for incremental position hashing, fixed seed so hashes are stable between runs
+public final class Zobrist {
+
+    //indexed by piece code * 64 + square
+    static final long[] PIECE_SQUARE = new long[12 * 64];
+    static final long BLACK_TO_MOVE;
+    //indexed by the castling rights bits, the xor of a key per right held
+    static final long[] CASTLING = new long[16];
+    //by file of the en passant square
+    static final long[] EN_PASSANT = new long[8];
+
+    static {
+        SplittableRandom random = new SplittableRandom(0x5EED_C0DE_CAFEL);
+        for (int i = 0; i < PIECE_SQUARE.length; i++) {
+            PIECE_SQUARE[i] = random.nextLong();
+        }
+        BLACK_TO_MOVE = random.nextLong();
+        long[] rights = new long[4];
+        for (int i = 0; i < rights.length; i++) {
+            rights[i] = random.nextLong();
+        }
+        for (int i = 0; i < CASTLING.length; i++) {
+            for (int right = 0; right < rights.length; right++) {
+                if ((i & (1 << right)) != 0) CASTLING[i] ^= rights[right];
+            }
+        }
+        for (int i = 0; i < EN_PASSANT.length; i++) {
+            EN_PASSANT[i] = random.nextLong();
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    static long piece(int piece, int square) {
+        return PIECE_SQUARE[piece * 64 + square];
+    }
+}
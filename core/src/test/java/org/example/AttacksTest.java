@@ -0,0 +1,37 @@
+package org.example;
+
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static junit.framework.TestCase.*;
+
+public class AttacksTest {
+
+    //a cold JVM builds the tables in a few tens of milliseconds, the slack is for busy CI machines
+    private static final long INIT_BUDGET_NANOS = 500_000_000L;
+
+    @Test
+    public void testMagicLookupsMatchRays() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (int i = 0; i < 20_000; i++) {
+            int sq = random.nextInt(64);
+            long occupied = random.nextLong() & random.nextLong();
+            assertEquals(Attacks.slowRook(sq, occupied), Attacks.rook(sq, occupied));
+            assertEquals(Attacks.slowBishop(sq, occupied), Attacks.bishop(sq, occupied));
+        }
+    }
+
+    @Test
+    public void testEmptyBoard() {
+        assertEquals(14, Long.bitCount(Attacks.rook(Bitboards.square(3, 3), 0L)));
+        assertEquals(13, Long.bitCount(Attacks.bishop(Bitboards.square(3, 3), 0L)));
+        assertEquals(7, Long.bitCount(Attacks.bishop(0, 0L)));
+    }
+
+    @Test
+    public void testInitTime() {
+        System.out.println("attack tables built in " + Attacks.INIT_NANOS / 1000 + " us");
+        assertTrue(Attacks.INIT_NANOS < INIT_BUDGET_NANOS);
+    }
+}
@@ -0,0 +1,114 @@
+package org.example;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static junit.framework.TestCase.*;
+
+public class BitbasesTest {
+
+    private static Path directory;
+    private static Bitbases bitbases;
+
+    @BeforeClass
+    public static void generate() throws Exception {
+        directory = Files.createTempDirectory("bitbases");
+        directory.toFile().deleteOnExit();
+        BitbaseGenerator generator = new BitbaseGenerator(2);
+        for (int rank : new int[]{ChessModel.QUEEN, ChessModel.ROOK, ChessModel.PAWN}) {
+            generator.write(directory, rank).toFile().deleteOnExit();
+        }
+        bitbases = Bitbases.open(directory);
+    }
+
+    private static int probe(String fen) {
+        ChessModel chessModel = new ChessModel();
+        chessModel.loadFen(fen);
+        return bitbases.probe(chessModel);
+    }
+
+    @Test
+    public void testProbe() {
+        assertTrue(bitbases.has(ChessModel.QUEEN) && bitbases.has(ChessModel.PAWN));
+        assertFalse(bitbases.has(ChessModel.KNIGHT));
+
+        assertEquals(Bitbases.WIN, probe("8/8/8/8/8/8/1Q6/K6k w"));
+        //mate, stalemate, and a queen left hanging
+        assertEquals(Bitbases.LOSS, probe("k7/1Q6/2K5/8/8/8/8/8 b"));
+        assertEquals(Bitbases.DRAW, probe("k7/8/1QK5/8/8/8/8/8 b"));
+        assertEquals(Bitbases.DRAW, probe("8/8/8/8/8/8/1Qk5/7K b"));
+        assertEquals(Bitbases.LOSS, probe("8/8/8/8/8/8/8/R3K2k b"));
+
+        //king on the sixth in front of the pawn wins whoever moves, the rook pawn is a draw
+        assertEquals(Bitbases.WIN, probe("4k3/8/4K3/4P3/8/8/8/8 w"));
+        assertEquals(Bitbases.LOSS, probe("4k3/8/4K3/4P3/8/8/8/8 b"));
+        assertEquals(Bitbases.DRAW, probe("7k/8/5K1P/8/8/8/8/8 w"));
+        //promotes, or is taken first
+        assertEquals(Bitbases.WIN, probe("8/3P4/4K3/8/8/8/8/k7 w"));
+        assertEquals(Bitbases.DRAW, probe("8/3Pk3/8/8/8/8/8/K7 b"));
+
+        //black with the piece is looked up with the colours swapped
+        assertEquals(Bitbases.WIN, probe("8/8/8/8/8/8/1q6/k6K b"));
+        assertEquals(Bitbases.LOSS, probe("4K3/8/4k3/8/4p3/8/8/8 w"));
+
+        //not covered
+        assertEquals(Bitbases.UNKNOWN, probe("8/8/8/8/8/8/1N6/K6k w"));
+        assertEquals(Bitbases.UNKNOWN, probe("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w"));
+    }
+
+    @Test
+    public void testKpkStatistics() throws Exception {
+        //the well known counts: 163328 legal KPK positions with white to move, 124960 of them won
+        ByteBuffer table = ByteBuffer.wrap(Files.readAllBytes(directory.resolve("KPK" + Bitbases.FILE_SUFFIX)));
+        int[] counts = new int[4];
+        for (int index = 0; index < Bitbases.POSITIONS / 2; index++) {
+            counts[Bitbases.read(table, index)]++;
+        }
+        assertEquals(124960, counts[Bitbases.WIN]);
+        assertEquals(163328 - 124960, counts[Bitbases.DRAW]);
+        assertEquals(0, counts[Bitbases.LOSS]);
+    }
+
+    @Test
+    public void testConsistentWithMoves() {
+        //every position agrees with the positions its moves lead to
+        ChessModel chessModel = new ChessModel();
+        MoveList moves = new MoveList();
+        Random random = new Random(3);
+        int checked = 0;
+        while (checked < 2000) {
+            int index = random.nextInt(Bitbases.POSITIONS);
+            int whiteKing = (index >>> 12) & 63;
+            int blackKing = (index >>> 6) & 63;
+            int square = index & 63;
+            if (whiteKing == blackKing || square == whiteKing || square == blackKing) continue;
+            int rank = random.nextBoolean() ? ChessModel.QUEEN : ChessModel.ROOK;
+            chessModel.clearBoard(index >>> 18 == 0 ? Player.WHITE : Player.BLACK);
+            chessModel.putPiece(ChessModel.KING, whiteKing);
+            chessModel.putPiece(6 + ChessModel.KING, blackKing);
+            chessModel.putPiece(rank, square);
+            int result = bitbases.probe(chessModel);
+            if (result == Bitbases.UNKNOWN) continue;
+
+            boolean win = false;
+            boolean allWon = true;
+            int count = chessModel.generateLegalMoves(moves);
+            for (int i = 0; i < count; i++) {
+                chessModel.makeMove(moves.get(i));
+                int next = bitbases.probe(chessModel);
+                chessModel.unmakeMove();
+                win |= next == Bitbases.LOSS;
+                allWon &= next == Bitbases.WIN;
+            }
+            boolean mated = count == 0 && chessModel.isInCheck(chessModel.getPlayerInTurn());
+            int expected = win ? Bitbases.WIN : (count > 0 && allWon) || mated ? Bitbases.LOSS : Bitbases.DRAW;
+            assertEquals(chessModel.toFen(), expected, result);
+            checked++;
+        }
+    }
+}
@@ -0,0 +1,341 @@
+package org.example;
+
+import junit.framework.TestCase;
+import org.junit.Test;
+
+import java.nio.CharBuffer;
+
+import static junit.framework.TestCase.*;
+
+public class ChessModelTest extends ChessModel {
+
+
+    @Test
+    public void testReset(){
+        ChessModel chessModel = new ChessModel();
+        chessModel.reset();
+        chessModel.movePiece(0,1,0,2);
+        chessModel.reset();
+        assertNull(chessModel.pieceAt(0,2));
+        System.out.println(chessModel);
+
+    }
+    @Test
+    public void testMovePiece(){
+        ChessModel chessModel = new ChessModel();
+        chessModel.reset();
+        assertNull(chessModel.pieceAt(0,2));
+        System.out.println(chessModel);
+
+        assertTrue(chessModel.movePiece(0,1,0,2));
+        assertNotNull(chessModel.pieceAt(0,2));
+        System.out.println(chessModel);
+
+        //white again, and a move that isn't legal: neither is made
+        assertFalse(chessModel.movePiece(1,1,1,2));
+        assertFalse(chessModel.movePiece(0,6,0,3));
+        assertNull(chessModel.pieceAt(1,2));
+        assertEquals(1, chessModel.getPly());
+
+    }
+
+    @Test
+    public void testPieceAt(){
+        ChessModel chessModel = new ChessModel();
+        assertNull(chessModel.pieceAt(0,0));
+        chessModel.reset();
+        assertNotNull(chessModel.pieceAt(0,0));
+
+        assertEquals(Player.WHITE, chessModel.pieceAt(0,0).getPlayer());
+        assertEquals(Rank.ROOK, chessModel.pieceAt(0,0).getRank());
+
+    }
+
+
+
+    @Test
+    public void testIsValidMove(){
+        ChessModel chessModel = new ChessModel();
+        chessModel.reset();
+
+        assertTrue(chessModel.isValidMove(1,0,2,2));   //knight
+        assertFalse(chessModel.isValidMove(1,0,3,1));  //knight onto own pawn
+        assertFalse(chessModel.isValidMove(2,0,4,2));  //bishop blocked
+        assertTrue(chessModel.isValidMove(4,1,4,3));   //double pawn push
+        assertFalse(chessModel.isValidMove(4,1,4,4));
+
+        //fool's mate, white is checkmated so nothing may leave the king in check
+        chessModel.movePiece(5,1,5,2);
+        chessModel.movePiece(4,6,4,4);
+        chessModel.movePiece(6,1,6,3);
+        chessModel.movePiece(3,7,7,3);
+        assertTrue(chessModel.isInCheck(Player.WHITE));
+        assertFalse(chessModel.isValidMove(0,1,0,2));
+        assertFalse(chessModel.isValidMove(4,0,5,1));
+
+    }
+
+
+
+    @Test
+    public void testGenerateLegalMoves(){
+        ChessModel chessModel = new ChessModel();
+        MoveList moves = new MoveList();
+        assertEquals(0, chessModel.generateLegalMoves(moves));
+
+        chessModel.reset();
+        assertEquals(20, chessModel.generateLegalMoves(moves));
+        assertEquals(2, chessModel.generateMovesFrom(Bitboards.square(6,0), moves));
+        assertEquals(0, chessModel.generateMovesFrom(Bitboards.square(3,0), moves));
+
+        chessModel.movePiece(5,1,5,2);
+        chessModel.movePiece(4,6,4,4);
+        chessModel.movePiece(6,1,6,3);
+        chessModel.movePiece(3,7,7,3);
+        assertEquals(0, chessModel.generateLegalMoves(moves));
+
+    }
+
+
+
+    @Test
+    public void testPinsAndChecks(){
+        ChessModel chessModel = new ChessModel();
+        MoveList moves = new MoveList();
+
+        //knight pinned by the rook, bishop pinned on the diagonal may only slide along it
+        chessModel.loadFen("4k3/4r3/8/8/7b/8/4NB2/4K3 w - - 0 1");
+        assertEquals(0, chessModel.generateMovesFrom(Bitboards.square(4,1), moves));
+        assertTrue(chessModel.isValidMove(5,1,6,2));
+        assertTrue(chessModel.isValidMove(5,1,7,3));
+        assertFalse(chessModel.isValidMove(5,1,4,2));
+        assertFalse(chessModel.isValidMove(5,1,6,0));
+
+        //checked by the queen: capture it, block, or step off the diagonal
+        chessModel.loadFen("4k3/8/8/q7/8/8/8/RN2K2R w - - 0 1");
+        assertTrue(chessModel.isInCheck(Player.WHITE));
+        assertTrue(chessModel.isValidMove(0,0,0,4));
+        assertTrue(chessModel.isValidMove(1,0,2,2));
+        assertFalse(chessModel.isValidMove(1,0,0,2));
+        assertFalse(chessModel.isValidMove(7,0,7,4));
+        assertTrue(chessModel.isValidMove(4,0,4,1));
+        assertFalse(chessModel.isValidMove(4,0,3,1));
+        assertTrue(chessModel.isSquareAttacked(3,1,Player.WHITE));
+
+        //the king can't step back along the rook's line
+        chessModel.loadFen("4k3/8/8/8/8/8/8/r3K3 w - - 0 1");
+        assertFalse(chessModel.isValidMove(4,0,5,0));
+        assertTrue(chessModel.isValidMove(4,0,5,1));
+
+    }
+
+
+
+    @Test
+    public void testMakeUnmakeMove(){
+        ChessModel chessModel = new ChessModel();
+        chessModel.reset();
+        chessModel.movePiece(4,1,4,3);
+        chessModel.movePiece(3,6,3,4);
+        String before = chessModel.toString();
+
+        MoveList moves = new MoveList();
+        MoveList replies = new MoveList();
+        chessModel.generateLegalMoves(moves);
+        for (int i = 0; i < moves.size(); i++) {
+            chessModel.makeMove(moves.get(i));
+            assertEquals(Player.BLACK, chessModel.getPlayerInTurn());
+            chessModel.generateLegalMoves(replies);
+            for (int j = 0; j < replies.size(); j++) {
+                chessModel.makeMove(replies.get(j));
+                chessModel.unmakeMove();
+            }
+            chessModel.unmakeMove();
+        }
+
+        assertEquals(before, chessModel.toString());
+        assertEquals(Player.WHITE, chessModel.getPlayerInTurn());
+        assertEquals(2, chessModel.getUndoCount());
+
+    }
+
+
+
+    @Test
+    public void testHash(){
+        ChessModel a = new ChessModel();
+        a.reset();
+        assertEquals(a.computeHash(), a.getHash());
+        long start = a.getHash();
+
+        //same position through different move orders
+        a.movePiece(6,0,5,2);
+        a.movePiece(6,7,5,5);
+        a.movePiece(1,0,2,2);
+        assertEquals(a.computeHash(), a.getHash());
+
+        ChessModel b = new ChessModel();
+        b.reset();
+        b.movePiece(1,0,2,2);
+        b.movePiece(6,7,5,5);
+        b.movePiece(6,0,5,2);
+        assertEquals(a.getHash(), b.getHash());
+
+        //side to move is part of the key
+        ChessModel c = new ChessModel();
+        c.loadFen("rnbqkb1r/pppppppp/5n2/8/8/2N2N2/PPPPPPPP/R1BQKB1R w KQkq - 0 1");
+        assertFalse(a.getHash() == c.getHash());
+
+        a.unmakeMove();
+        a.unmakeMove();
+        a.unmakeMove();
+        assertEquals(start, a.getHash());
+
+    }
+
+
+
+    @Test
+    public void testSpecialMoves(){
+        ChessModel chessModel = new ChessModel();
+        String fen = "r3k2r/1P6/8/3pP3/8/8/8/R3K2R w KQkq d6 0 1";
+        chessModel.loadFen(fen);
+
+        //castling moves the rook and takes the rights, en passant takes the pawn behind
+        chessModel.movePiece(4,0,6,0);
+        assertEquals("r3k2r/1P6/8/3pP3/8/8/8/R4RK1 b kq - 1 1", chessModel.toFen());
+        chessModel.unmakeMove();
+        chessModel.movePiece(4,4,3,5);
+        assertEquals("r3k2r/1P6/3P4/8/8/8/8/R3K2R b KQkq - 0 1", chessModel.toFen());
+        assertEquals(chessModel.computeHash(), chessModel.getHash());
+        chessModel.unmakeMove();
+
+        //a pawn taking the rook becomes a queen and black can't castle that side any more
+        chessModel.movePiece(1,6,0,7);
+        assertEquals("Q3k2r/8/8/3pP3/8/8/8/R3K2R b KQk - 0 1", chessModel.toFen());
+        assertEquals(chessModel.computeHash(), chessModel.getHash());
+        chessModel.unmakeMove();
+        assertEquals(fen, chessModel.toFen());
+
+        //no castling through an attacked square
+        chessModel.loadFen("4kr2/8/8/8/8/8/8/R3K2R w KQ - 0 1");
+        assertFalse(chessModel.isValidMove(4,0,6,0));
+        assertTrue(chessModel.isValidMove(4,0,2,0));
+    }
+
+
+
+    @Test
+    public void testGameState(){
+        ChessModel chessModel = new ChessModel();
+        chessModel.reset();
+        assertEquals(ChessModel.ONGOING, chessModel.gameState());
+
+        chessModel.movePiece(5,1,5,2);
+        chessModel.movePiece(4,6,4,4);
+        chessModel.movePiece(6,1,6,3);
+        chessModel.movePiece(3,7,7,3);
+        assertEquals(ChessModel.CHECKMATE, chessModel.gameState());
+
+        chessModel.loadFen("k7/8/1Q6/8/8/8/8/7K b - - 0 1");
+        assertEquals(ChessModel.STALEMATE, chessModel.gameState());
+
+        chessModel.loadFen("k7/8/8/8/8/8/8/R6K w - - 99 80");
+        chessModel.movePiece(0,0,1,0);
+        assertEquals(ChessModel.FIFTY_MOVES, chessModel.gameState());
+
+        //the knights go out and back twice, the third time the start position is on the board
+        chessModel.reset();
+        for (int i = 0; i < 2; i++) {
+            chessModel.movePiece(6,0,5,2);
+            chessModel.movePiece(6,7,5,5);
+            chessModel.movePiece(5,2,6,0);
+            assertEquals(ChessModel.ONGOING, chessModel.gameState());
+            chessModel.movePiece(5,5,6,7);
+        }
+        assertEquals(ChessModel.REPETITION, chessModel.gameState());
+    }
+
+
+
+    @Test
+    public void testFen(){
+        ChessModel chessModel = new ChessModel();
+        chessModel.reset();
+        assertEquals("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1", chessModel.toFen());
+
+        chessModel.movePiece(4,1,4,3);
+        assertEquals("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1", chessModel.toFen());
+        chessModel.movePiece(2,6,2,4);
+        assertEquals("rnbqkbnr/pp1ppppp/8/2p5/4P3/8/PPPP1PPP/RNBQKBNR w KQkq - 0 2", chessModel.toFen());
+        chessModel.movePiece(6,0,5,2);
+        assertEquals("rnbqkbnr/pp1ppppp/8/2p5/4P3/5N2/PPPP1PPP/RNBQKB1R b KQkq - 1 2", chessModel.toFen());
+
+        //round trip through a StringBuilder and a CharBuffer
+        String[] fens = {
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R b - - 0 1",
+                "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 37",
+                "4k3/8/8/8/8/8/8/4K3 b - - 0 120",
+                "r3k2r/8/8/8/3pP3/8/8/R3K2R b Kq e3 12 40",
+        };
+        ChessModel copy = new ChessModel();
+        StringBuilder builder = new StringBuilder();
+        CharBuffer buffer = CharBuffer.allocate(ChessModel.MAX_FEN_LENGTH);
+        for (String fen : fens) {
+            chessModel.loadFen(fen);
+            builder.setLength(0);
+            assertEquals(fen, chessModel.appendFen(builder).toString());
+            copy.loadFen(builder);
+            assertEquals(chessModel.getHash(), copy.getHash());
+
+            buffer.clear();
+            chessModel.putFen(buffer).flip();
+            assertEquals(fen, buffer.toString());
+        }
+
+        //fields after the placement are optional, an en passant square no pawn can take on is
+        //dropped and so are castling rights without king and rook at home
+        chessModel.loadFen("4k3/8/8/8/8/8/8/4K3");
+        assertEquals(Player.WHITE, chessModel.getPlayerInTurn());
+        chessModel.loadFen("rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq e6 0 2");
+        assertEquals("rnbqkbnr/pppp1ppp/8/4p3/4P3/8/PPPP1PPP/RNBQKBNR w KQkq - 0 2", chessModel.toFen());
+        chessModel.loadFen("4k2r/8/8/8/8/8/8/R4K2 w KQkq - 3 9");
+        assertEquals("4k2r/8/8/8/8/8/8/R4K2 w k - 3 9", chessModel.toFen());
+
+        String[] invalid = {
+                "",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w - - 0 1",      //seven ranks
+                "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1",
+                "rnbqkbnr/ppppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQXBNR w - - 0 1",
+                "rnbq1bnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1",   //no black king
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x - - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkx - 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - e4 0 1",
+                "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w - - 0 1 extra",
+        };
+        for (String fen : invalid) {
+            try {
+                chessModel.loadFen(fen);
+                fail(fen);
+            } catch (IllegalArgumentException expected) {
+            }
+        }
+
+    }
+
+
+
+    @Test
+    public void testToString() {
+
+        ChessModel chessModel = new ChessModel();
+        assertTrue(chessModel.toString().contains("0 . . . . . . . ."));
+        chessModel.reset();
+        System.out.println(chessModel);
+        assertTrue(chessModel.toString().contains("0 r n b q k b n r"));
+
+
+
+    }
+}
\ No newline at end of file
@@ -0,0 +1,40 @@
+package org.example;
+
+import org.junit.Test;
+
+import static junit.framework.TestCase.*;
+
+public class EvaluationTest {
+
+    //every position two plies from Kiwipete and position 4 agrees with a recount on the way down
+    //and back up
+    @Test
+    public void testIncrementalMatchesRecount() {
+        ChessModel chessModel = new ChessModel();
+        for (String fen : new String[]{TestPositions.KIWIPETE, TestPositions.POSITION_4}) {
+            chessModel.loadFen(fen);
+            int before = Evaluation.evaluate(chessModel);
+            TestPositions.forEachWithinTwoPlies(chessModel, position -> {
+                Evaluation.check(position);
+                assertEquals(Evaluation.evaluateFromScratch(position), Evaluation.evaluate(position));
+            });
+            assertEquals(before, Evaluation.evaluate(chessModel));
+        }
+    }
+
+    @Test
+    public void testSymmetry() {
+        ChessModel chessModel = new ChessModel();
+        chessModel.reset();
+        assertEquals(0, Evaluation.evaluate(chessModel));
+        assertEquals(Evaluation.MAX_PHASE, chessModel.getPhase());
+
+        TestPositions.assertColourBlind(chessModel, Evaluation::evaluate);
+
+        //a queen up is a lot, more so with fewer pieces around
+        chessModel.loadFen("4k3/8/8/8/8/8/8/3QK3 w - - 0 1");
+        assertTrue(Evaluation.evaluate(chessModel) > 800);
+        chessModel.loadFen("4k3/8/8/8/8/8/8/3QK3 b - - 0 1");
+        assertTrue(Evaluation.evaluate(chessModel) < -800);
+    }
+}
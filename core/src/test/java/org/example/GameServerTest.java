@@ -0,0 +1,398 @@
+package org.example;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static junit.framework.TestCase.*;
+
+public class GameServerTest {
+
+    //blocking test client
+    private static class Client {
+        final SocketChannel channel;
+        final ByteBuffer in = ByteBuffer.allocate(1024);
+        final ByteBuffer out = ByteBuffer.allocate(64);
+        final Protocol.Message message = new Protocol.Message();
+        final ChessModel chessModel = new ChessModel();
+        //from START
+        int gameId;
+        long token;
+
+        Client(int port) throws IOException {
+            channel = SocketChannel.open(new InetSocketAddress("localhost", port));
+            chessModel.reset();
+            Protocol.hello(out);
+            flush();
+        }
+
+        //a spectator of gameId
+        Client(int port, int gameId) throws IOException {
+            channel = SocketChannel.open(new InetSocketAddress("localhost", port));
+            Protocol.watch(out, gameId);
+            flush();
+        }
+
+        //takes a seat back instead of saying HELLO
+        Client(int port, int gameId, long token) throws IOException {
+            channel = SocketChannel.open(new InetSocketAddress("localhost", port));
+            Protocol.resume(out, gameId, token);
+            flush();
+        }
+
+        void flush() throws IOException {
+            out.flip();
+            while (out.hasRemaining()) channel.write(out);
+            out.clear();
+        }
+
+        //returns the next message, or null at end of stream
+        Protocol.Message receive() throws IOException {
+            while (true) {
+                in.flip();
+                boolean decoded = Protocol.decode(in, message);
+                in.compact();
+                if (decoded) {
+                    if (message.type == Protocol.START) {
+                        gameId = message.gameId;
+                        token = message.token;
+                    }
+                    return message;
+                }
+                if (channel.read(in) < 0) return null;
+            }
+        }
+
+        void sendMove(int gameId, int fromCol, int fromRow, int toCol, int toRow) throws IOException {
+            int move = chessModel.findMove(fromCol, fromRow, toCol, toRow);
+            int sequence = chessModel.getPly();
+            chessModel.makeMove(move);
+            Protocol.move(out, gameId, sequence, move, chessModel.getHash());
+            flush();
+        }
+    }
+
+    @Test
+    public void testPairsAndRelaysMoves() throws Exception {
+        GameServer server = new GameServer(0);
+        server.start();
+        Client first = new Client(server.getLocalPort());
+        Client second = new Client(server.getLocalPort());
+        try {
+            //both HELLOs may be read in the same select, so either can end up white
+            Protocol.Message m = first.receive();
+            assertEquals(Protocol.START, m.type);
+            int gameId = m.gameId;
+            boolean firstIsWhite = m.code == Player.WHITE.ordinal();
+            m = second.receive();
+            assertEquals(Protocol.START, m.type);
+            assertEquals(gameId, m.gameId);
+            assertEquals(firstIsWhite ? Player.BLACK.ordinal() : Player.WHITE.ordinal(), m.code);
+            Client white = firstIsWhite ? first : second;
+            Client black = firstIsWhite ? second : first;
+
+            //black moving first
+            Protocol.move(black.out, gameId, 0, Move.of(Bitboards.square(4, 6), Bitboards.square(4, 4), Move.DOUBLE_PUSH), 0);
+            black.flush();
+            assertEquals(Protocol.ERROR, black.receive().type);
+            assertEquals(Protocol.NOT_YOUR_TURN, black.message.code);
+
+            //not a legal move
+            Protocol.move(white.out, gameId, 0, Move.of(Bitboards.square(4, 1), Bitboards.square(4, 5), Move.QUIET), 0);
+            white.flush();
+            assertEquals(Protocol.ERROR, white.receive().type);
+            assertEquals(Protocol.ILLEGAL_MOVE, white.message.code);
+
+            //legal move but a different position on our side
+            Protocol.move(white.out, gameId, 0, Move.of(Bitboards.square(4, 1), Bitboards.square(4, 3), Move.DOUBLE_PUSH), 12345);
+            white.flush();
+            assertEquals(Protocol.ERROR, white.receive().type);
+            assertEquals(Protocol.DESYNC, white.message.code);
+
+            Protocol.move(white.out, gameId, 3, Move.of(Bitboards.square(4, 1), Bitboards.square(4, 3), Move.DOUBLE_PUSH), 0);
+            white.flush();
+            assertEquals(Protocol.OUT_OF_SEQUENCE, white.receive().code);
+
+            //fool's mate
+            int[][] moves = {{5, 1, 5, 2}, {4, 6, 4, 4}, {6, 1, 6, 3}, {3, 7, 7, 3}};
+            for (int i = 0; i < moves.length; i++) {
+                Client mover = i % 2 == 0 ? white : black;
+                Client other = i % 2 == 0 ? black : white;
+                int[] mv = moves[i];
+                mover.sendMove(gameId, mv[0], mv[1], mv[2], mv[3]);
+                assertEquals(Protocol.ACK, mover.receive().type);
+                assertEquals(i, mover.message.sequence);
+
+                m = other.receive();
+                assertEquals(Protocol.MOVE, m.type);
+                assertEquals(i, m.sequence);
+                other.chessModel.makeMove(Protocol.findLegalMove(other.chessModel, m.move, new MoveList()));
+                assertEquals(other.chessModel.getHash(), m.hash);
+            }
+
+            assertEquals(Protocol.GAME_OVER, white.receive().type);
+            assertEquals(Protocol.NO_LEGAL_MOVES, white.message.code);
+            assertEquals(Protocol.GAME_OVER, black.receive().type);
+            assertNull(white.receive());
+            assertEquals(4, server.getTotalMoves());
+            assertEquals(0, server.getActiveGames());
+        } finally {
+            first.channel.close();
+            second.channel.close();
+            server.stop();
+            server.awaitStop();
+        }
+    }
+
+    @Test
+    public void testDrawByRepetition() throws Exception {
+        GameServer server = new GameServer(0);
+        server.start();
+        Client[] players = pair(server.getLocalPort());
+        try {
+            int gameId = players[0].gameId;
+            //the knights go out and back twice, the start position comes back a third time
+            int[][] moves = {{6, 0, 5, 2}, {6, 7, 5, 5}, {5, 2, 6, 0}, {5, 5, 6, 7}};
+            for (int i = 0; i < 8; i++) {
+                Client mover = players[i % 2];
+                int[] mv = moves[i % 4];
+                mover.sendMove(gameId, mv[0], mv[1], mv[2], mv[3]);
+                assertEquals(Protocol.ACK, mover.receive().type);
+                Protocol.Message m = players[(i + 1) % 2].receive();
+                assertEquals(Protocol.MOVE, m.type);
+                players[(i + 1) % 2].chessModel.makeMove(Protocol.findLegalMove(players[(i + 1) % 2].chessModel, m.move, new MoveList()));
+            }
+            for (Client player : players) {
+                assertEquals(Protocol.GAME_OVER, player.receive().type);
+                assertEquals(Protocol.REPETITION, player.message.code);
+            }
+            assertEquals(0, server.getActiveGames());
+        } finally {
+            players[0].channel.close();
+            players[1].channel.close();
+            server.stop();
+            server.awaitStop();
+        }
+    }
+
+    //white and black of a new game
+    private static Client[] pair(int port) throws IOException {
+        Client first = new Client(port);
+        Client second = new Client(port);
+        assertEquals(Protocol.START, first.receive().type);
+        assertEquals(Protocol.START, second.receive().type);
+        return first.message.code == Player.WHITE.ordinal() ? new Client[]{first, second} : new Client[]{second, first};
+    }
+
+    @Test
+    public void testResume() throws Exception {
+        GameServer server = new GameServer(0, 1000);
+        server.start();
+        Client[] players = pair(server.getLocalPort());
+        Client white = players[0];
+        Client black = players[1];
+        Client stranger = null;
+        Client resumed = null;
+        try {
+            int gameId = white.gameId;
+            white.sendMove(gameId, 4, 1, 4, 3);
+            assertEquals(Protocol.ACK, white.receive().type);
+            //black drops, maybe before the move arrives, and comes back on a new connection
+            black.channel.close();
+
+            stranger = new Client(server.getLocalPort(), gameId, black.token + 1);
+            assertEquals(Protocol.ERROR, stranger.receive().type);
+            assertEquals(Protocol.UNKNOWN_GAME, stranger.message.code);
+
+            resumed = new Client(server.getLocalPort(), gameId, black.token);
+            Protocol.Message m = resumed.receive();
+            assertEquals(Protocol.SNAPSHOT, m.type);
+            assertEquals(gameId, m.gameId);
+            assertEquals(Player.BLACK.ordinal(), m.code);
+            resumed.chessModel.loadFen(m.fen);
+            assertEquals(white.chessModel.getHash(), resumed.chessModel.getHash());
+            assertEquals(m.hash, resumed.chessModel.getHash());
+
+            //and plays on from there
+            resumed.sendMove(gameId, 4, 6, 4, 4);
+            assertEquals(Protocol.ACK, resumed.receive().type);
+            assertEquals(1, resumed.message.sequence);
+            assertEquals(Protocol.MOVE, white.receive().type);
+            assertEquals(1, white.message.sequence);
+
+            //RESUME again on the same connection is how a client that lost track asks for the position
+            Protocol.resume(resumed.out, gameId, black.token);
+            resumed.flush();
+            assertEquals(Protocol.SNAPSHOT, resumed.receive().type);
+            assertEquals(resumed.chessModel.getHash(), resumed.message.hash);
+            Protocol.resume(resumed.out, gameId, white.token);
+            resumed.flush();
+            assertEquals(Protocol.ERROR, resumed.receive().type);
+            assertEquals(Protocol.BAD_MESSAGE, resumed.message.code);
+
+            //white drops for good, black hears of it once the seat has been empty long enough
+            white.channel.close();
+            assertEquals(Protocol.GAME_OVER, resumed.receive().type);
+            assertEquals(Protocol.OPPONENT_LEFT, resumed.message.code);
+            assertEquals(0, server.getActiveGames());
+        } finally {
+            white.channel.close();
+            if (stranger != null) stranger.channel.close();
+            if (resumed != null) resumed.channel.close();
+            server.stop();
+            server.awaitStop();
+        }
+    }
+
+    @Test
+    public void testSpectators() throws Exception {
+        GameServer server = new GameServer(0);
+        server.start();
+        Client[] players = pair(server.getLocalPort());
+        Client white = players[0];
+        Client black = players[1];
+        Client[] watchers = new Client[3];
+        try {
+            int gameId = white.gameId;
+            white.sendMove(gameId, 5, 1, 5, 2);
+            assertEquals(Protocol.ACK, white.receive().type);
+            assertEquals(Protocol.MOVE, black.receive().type);
+            black.chessModel.makeMove(Protocol.findLegalMove(black.chessModel, black.message.move, new MoveList()));
+
+            watchers[0] = new Client(server.getLocalPort(), gameId + 1);
+            assertEquals(Protocol.ERROR, watchers[0].receive().type);
+            assertEquals(Protocol.UNKNOWN_GAME, watchers[0].message.code);
+
+            //joining late, they start from the position
+            for (int i = 1; i < watchers.length; i++) {
+                watchers[i] = new Client(server.getLocalPort(), gameId);
+                Protocol.Message m = watchers[i].receive();
+                assertEquals(Protocol.SNAPSHOT, m.type);
+                assertEquals(Protocol.SPECTATOR, m.code);
+                watchers[i].chessModel.loadFen(m.fen);
+                assertEquals(white.chessModel.getHash(), watchers[i].chessModel.getHash());
+            }
+
+            //the rest of fool's mate, every watcher sees every move
+            int[][] moves = {{4, 6, 4, 4}, {6, 1, 6, 3}, {3, 7, 7, 3}};
+            for (int i = 0; i < moves.length; i++) {
+                Client mover = i % 2 == 0 ? black : white;
+                Client other = i % 2 == 0 ? white : black;
+                int[] mv = moves[i];
+                mover.sendMove(gameId, mv[0], mv[1], mv[2], mv[3]);
+                assertEquals(Protocol.ACK, mover.receive().type);
+                other.receive();
+                other.chessModel.makeMove(Protocol.findLegalMove(other.chessModel, other.message.move, new MoveList()));
+            }
+            for (int i = 1; i < watchers.length; i++) {
+                for (int ply = 1; ply <= moves.length; ply++) {
+                    Protocol.Message m = watchers[i].receive();
+                    assertEquals(Protocol.MOVE, m.type);
+                    assertEquals(ply, m.sequence);
+                    ChessModel chessModel = watchers[i].chessModel;
+                    chessModel.makeMove(Protocol.findLegalMove(chessModel, m.move, new MoveList()));
+                    assertEquals(m.hash, chessModel.getHash());
+                }
+                assertEquals(Protocol.GAME_OVER, watchers[i].receive().type);
+                assertEquals(Protocol.NO_LEGAL_MOVES, watchers[i].message.code);
+                assertNull(watchers[i].receive());
+            }
+            assertEquals(0, server.getWatchers());
+        } finally {
+            white.channel.close();
+            black.channel.close();
+            for (Client watcher : watchers) {
+                if (watcher != null) watcher.channel.close();
+            }
+            server.stop();
+            server.awaitStop();
+        }
+        //three moves and the end, to two watchers
+        assertEquals(8, server.getBroadcastLatency().getCount());
+    }
+
+    @Test
+    public void testRestartFromJournal() throws Exception {
+        Path directory = Files.createTempDirectory("journal");
+        directory.toFile().deleteOnExit();
+        MoveJournal journal = MoveJournal.open(directory, MoveJournal.Flush.OS);
+        GameServer server = new GameServer(0, GameServer.RESUME_GRACE_MILLIS, journal);
+        server.start();
+        Client[] players = pair(server.getLocalPort());
+        Client white = players[0];
+        Client black = players[1];
+        int gameId = white.gameId;
+        white.sendMove(gameId, 4, 1, 4, 3);
+        assertEquals(Protocol.ACK, white.receive().type);
+        black.receive();
+        black.chessModel.makeMove(Protocol.findLegalMove(black.chessModel, black.message.move, new MoveList()));
+        black.sendMove(gameId, 4, 6, 4, 4);
+        assertEquals(Protocol.ACK, black.receive().type);
+        //the server goes down with the game going
+        server.stop();
+        server.awaitStop();
+        journal.close();
+        white.channel.close();
+        black.channel.close();
+
+        journal = MoveJournal.open(directory, MoveJournal.Flush.OS);
+        server = new GameServer(0, GameServer.RESUME_GRACE_MILLIS, journal);
+        server.start();
+        Client resumed = new Client(server.getLocalPort(), gameId, white.token);
+        try {
+            assertEquals(1, server.getActiveGames());
+            Protocol.Message m = resumed.receive();
+            assertEquals(Protocol.SNAPSHOT, m.type);
+            assertEquals(Player.WHITE.ordinal(), m.code);
+            assertEquals(black.chessModel.getHash(), m.hash);
+            resumed.chessModel.loadFen(m.fen);
+            resumed.sendMove(gameId, 6, 0, 5, 2);
+            assertEquals(Protocol.ACK, resumed.receive().type);
+            assertEquals(2, resumed.message.sequence);
+        } finally {
+            resumed.channel.close();
+            server.stop();
+            server.awaitStop();
+            journal.close();
+        }
+    }
+
+    @Test
+    public void testLeave() throws Exception {
+        GameServer server = new GameServer(0);
+        server.start();
+        Client[] players = pair(server.getLocalPort());
+        try {
+            //no grace period for a player who says it is leaving
+            Protocol.leave(players[0].out, players[0].gameId);
+            players[0].flush();
+            assertEquals(Protocol.GAME_OVER, players[1].receive().type);
+            assertEquals(Protocol.OPPONENT_LEFT, players[1].message.code);
+            assertNull(players[0].receive());
+            assertEquals(0, server.getActiveGames());
+        } finally {
+            players[0].channel.close();
+            players[1].channel.close();
+            server.stop();
+            server.awaitStop();
+        }
+    }
+
+    @Test
+    public void testLoadGenerator() throws Exception {
+        GameServer server = new GameServer(0);
+        server.start();
+        try {
+            long moves = new LoadGenerator(new InetSocketAddress("localhost", server.getLocalPort()), 20).run(500);
+            assertTrue(moves > 0);
+        } finally {
+            server.stop();
+            server.awaitStop();
+        }
+    }
+}
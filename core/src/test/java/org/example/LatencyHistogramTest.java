@@ -0,0 +1,43 @@
+package org.example;
+
+import org.junit.Test;
+
+import static junit.framework.TestCase.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.valueAtPercentile(99));
+        for (long value = 1; value <= 100_000; value++) {
+            histogram.record(value * 1000);
+        }
+        assertEquals(100_000, histogram.getCount());
+        assertEquals(100_000_000, histogram.getMax());
+
+        //never below the exact value, and at most one sub-bucket above it
+        long[][] expected = {{50, 50_000_000}, {99, 99_000_000}};
+        for (long[] e : expected) {
+            long value = histogram.valueAtPercentile(e[0]);
+            assertTrue(value + " for p" + e[0], value >= e[1] && value <= e[1] + e[1] / 16);
+        }
+        assertEquals(histogram.getMax(), histogram.valueAtPercentile(100));
+
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+    }
+
+    @Test
+    public void testBuckets() {
+        //every value lands in a bucket whose range holds it, and buckets are in order
+        long previous = -1;
+        for (long value : new long[]{0, 1, 15, 16, 17, 31, 32, 1000, 123_456_789, Long.MAX_VALUE}) {
+            int bucket = LatencyHistogram.bucket(value);
+            assertTrue(value <= LatencyHistogram.highestValue(bucket));
+            assertTrue(bucket == 0 || value > LatencyHistogram.highestValue(bucket - 1));
+            assertTrue(bucket >= previous);
+            previous = bucket;
+        }
+    }
+}
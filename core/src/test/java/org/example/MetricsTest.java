@@ -0,0 +1,47 @@
+package org.example;
+
+import org.junit.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static junit.framework.TestCase.*;
+
+public class MetricsTest {
+
+    @Test
+    public void testMBean() throws Exception {
+        Metrics.register();
+        Metrics.reset();
+        Metrics.MOVE_VALIDATION.record(5_000);
+        Metrics.MOVE_VALIDATION.record(7_000);
+        Metrics.SEARCH_NODES.add(3_000_000);
+        Metrics.SEARCH_NANOS.add(2_000_000_000);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName(Metrics.OBJECT_NAME);
+        CompositeData validation = (CompositeData) server.getAttribute(name, "MoveValidation");
+        assertEquals(2L, validation.get("count"));
+        assertEquals(7L, validation.get("maxMicros"));
+        assertEquals(1_500_000L, server.getAttribute(name, "NodesPerSecond"));
+
+        server.invoke(name, "reset", null, null);
+        assertEquals(0, Metrics.MOVE_VALIDATION.getCount());
+    }
+
+    @Test
+    public void testDump() throws Exception {
+        Path file = Files.createTempFile("metrics", ".txt");
+        file.toFile().deleteOnExit();
+        Metrics.reset();
+        Metrics.ROUND_TRIP.record(250_000);
+        Metrics.dump(file);
+        String dump = Files.readString(file);
+        assertTrue(dump, dump.contains("roundTrip count 1 p50 250 "));
+        assertTrue(dump, dump.contains("nodesPerSecond 0\n"));
+    }
+}
@@ -0,0 +1,78 @@
+package org.example;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static junit.framework.TestCase.*;
+
+public class MoveJournalTest {
+
+    private static Path directory() throws Exception {
+        Path directory = Files.createTempDirectory("journal");
+        directory.toFile().deleteOnExit();
+        return directory;
+    }
+
+    @Test
+    public void testReplayAndSegments() throws Exception {
+        Path directory = directory();
+        //room for 7 records after the header
+        MoveJournal journal = MoveJournal.open(directory, MoveJournal.Flush.GROUP, 8);
+        journal.start(1, 11, 12);
+        journal.start(2, 21, 22);
+        for (int ply = 0; ply < 10; ply++) {
+            journal.move(1, ply, 100 + ply, 1000 + ply);
+        }
+        journal.end(2);
+        journal.start(3, 31, 32);
+        journal.move(3, 0, 300, 3000);
+        assertEquals(3, journal.getSegmentCount());
+        journal.close();
+
+        journal = MoveJournal.open(directory, MoveJournal.Flush.OS, 8);
+        List<MoveJournal.OpenGame> games = journal.getOpenGames();
+        assertEquals(2, games.size());
+        MoveJournal.OpenGame first = games.get(0);
+        assertEquals(1, first.getId());
+        assertEquals(11, first.getWhiteToken());
+        assertEquals(12, first.getBlackToken());
+        assertEquals(10, first.getMoveCount());
+        assertEquals(109, first.getMove(9));
+        assertEquals(1009, first.getHash(9));
+        assertEquals(3, games.get(1).getId());
+        assertEquals(300, games.get(1).getMove(0));
+
+        //reopening started a fourth segment; once the game in the first one ends that goes
+        journal.end(1);
+        assertEquals(3, journal.getSegmentCount());
+        journal.end(3);
+        assertEquals(1, journal.getSegmentCount());
+        journal.close();
+        assertTrue(MoveJournal.open(directory, MoveJournal.Flush.OS, 8).getOpenGames().isEmpty());
+    }
+
+    @Test
+    public void testTornRecord() throws Exception {
+        Path directory = directory();
+        MoveJournal journal = MoveJournal.open(directory, MoveJournal.Flush.EVERY_MOVE, 64);
+        journal.start(5, 1, 2);
+        journal.move(5, 0, 7, 70);
+        journal.move(5, 1, 8, 80);
+        journal.close();
+
+        //the process died half way through the last move: its hash got written, the checksum didn't
+        try (FileChannel channel = FileChannel.open(directory.resolve("journal-00000001.seg"), StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{1, 2, 3}), 3 * MoveJournal.RECORD_SIZE + 16);
+        }
+        List<MoveJournal.OpenGame> games = MoveJournal.open(directory, MoveJournal.Flush.OS, 64).getOpenGames();
+        assertEquals(1, games.size());
+        assertEquals(1, games.get(0).getMoveCount());
+        assertEquals(7, games.get(0).getMove(0));
+    }
+}
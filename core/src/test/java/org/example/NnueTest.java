@@ -0,0 +1,92 @@
+package org.example;
+
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static junit.framework.TestCase.*;
+
+public class NnueTest {
+
+    @Test
+    public void testSaveAndLoad() throws Exception {
+        Nnue network = Nnue.random(32, 1);
+        Path file = Files.createTempFile("network", ".nnue");
+        try {
+            network.save(file);
+            Nnue loaded = Nnue.load(file);
+            assertEquals(32, loaded.getHidden());
+
+            ChessModel chessModel = new ChessModel();
+            chessModel.loadFen(TestPositions.KIWIPETE);
+            NnueAccumulator saved = new NnueAccumulator(network, false);
+            NnueAccumulator read = new NnueAccumulator(loaded, false);
+            saved.refresh(chessModel);
+            read.refresh(chessModel);
+            assertTrue(saved.sameValues(read));
+            assertEquals(saved.evaluate(Player.WHITE), read.evaluate(Player.WHITE));
+
+            Files.write(file, new byte[Nnue.HEADER_SIZE]);
+            try {
+                Nnue.load(file);
+                fail();
+            } catch (java.io.IOException expected) {
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    //the accumulator the model keeps two plies from Kiwipete against one counted from scratch,
+    //through the vector path when there is one. 40 hidden values leave a tail after the vector loop.
+    @Test
+    public void testIncrementalMatchesRefresh() {
+        Nnue network = Nnue.random(40, 2);
+        ChessModel chessModel = new ChessModel();
+        chessModel.loadFen(TestPositions.KIWIPETE);
+        NnueAccumulator kept = new NnueAccumulator(network, Nnue.VECTOR_AVAILABLE);
+        chessModel.setAccumulator(kept);
+        NnueAccumulator scalar = new NnueAccumulator(network, false);
+        int before = kept.evaluate(Player.WHITE);
+
+        TestPositions.forEachWithinTwoPlies(chessModel, position -> {
+            scalar.refresh(position);
+            assertTrue(kept.sameValues(scalar));
+            assertEquals(scalar.evaluate(position.getPlayerInTurn()), kept.evaluate(position.getPlayerInTurn()));
+        });
+        assertEquals(before, kept.evaluate(Player.WHITE));
+    }
+
+    //black's inputs are white's turned over, so even random weights can't tell the sides apart
+    @Test
+    public void testSymmetry() {
+        ChessModel chessModel = new ChessModel();
+        chessModel.setAccumulator(new NnueAccumulator(Nnue.random(64, 3)));
+        TestPositions.assertColourBlind(chessModel,
+                position -> position.getAccumulator().evaluate(position.getPlayerInTurn()));
+    }
+
+    //a search evaluating with the network plays a legal move, and keeps its accumulator on its own
+    //copy of the position. From the start: random weights agree with nothing, so stand pat hardly
+    //ever cuts captures off and deeper positions explode
+    @Test
+    public void testSearchWithNetworkPlaysLegalMove() {
+        Nnue network = Nnue.random(64, 3);
+        ChessModel chessModel = new ChessModel();
+        chessModel.setAccumulator(new NnueAccumulator(network));
+        chessModel.reset();
+        int before = chessModel.getAccumulator().evaluate(Player.WHITE);
+
+        Search search = new Search(new TranspositionTable(1));
+        search.setNetwork(network);
+        int bestMove = search.search(chessModel, SearchLimits.depth(3)).getBestMove();
+        MoveList moves = new MoveList();
+        boolean legal = false;
+        for (int i = chessModel.generateLegalMoves(moves) - 1; i >= 0; i--) {
+            legal |= moves.get(i) == bestMove;
+        }
+        assertTrue(legal);
+        assertEquals(before, chessModel.getAccumulator().evaluate(Player.WHITE));
+    }
+}
@@ -0,0 +1,116 @@
+package org.example;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static junit.framework.TestCase.*;
+
+public class OpeningBookTest {
+
+    //writes entries {key, from, to, weight} sorted the way polyglot sorts them
+    private static Path writeBook(long[]... entries) throws Exception {
+        long[][] sorted = entries.clone();
+        Arrays.sort(sorted, Comparator.comparingLong((long[] e) -> e[0] ^ Long.MIN_VALUE));
+        ByteBuffer buffer = ByteBuffer.allocate(sorted.length * OpeningBook.ENTRY_SIZE);
+        for (long[] entry : sorted) {
+            buffer.putLong(entry[0]);
+            buffer.putShort((short) (entry[1] << 6 | entry[2]));
+            buffer.putShort((short) entry[3]);
+            buffer.putInt(0);
+        }
+        Path path = Files.createTempFile("book", ".bin");
+        path.toFile().deleteOnExit();
+        Files.write(path, buffer.array());
+        return path;
+    }
+
+    private static int square(String name) {
+        return Bitboards.square(name.charAt(0) - 'a', name.charAt(1) - '1');
+    }
+
+    //the keys given with the polyglot book format, en passant counted only when a pawn can take
+    @Test
+    public void testKey() {
+        ChessModel chessModel = new ChessModel();
+        chessModel.reset();
+        assertEquals(0x463b96181691fc9cL, OpeningBook.key(chessModel));
+        chessModel.loadFen("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1");
+        assertEquals(0x823c9b50fd114196L, OpeningBook.key(chessModel));
+        chessModel.loadFen("rnbqkbnr/ppp1p1pp/8/3pPp2/8/8/PPPP1PPP/RNBQKBNR w KQkq f6 0 3");
+        assertEquals(0x22a48b5a8e47ff78L, OpeningBook.key(chessModel));
+        chessModel.loadFen("rnbq1bnr/ppp1pkpp/8/3pPp2/8/8/PPPPKPPP/RNBQ1BNR w - - 0 4");
+        assertEquals(0x00fdd303c946bdd9L, OpeningBook.key(chessModel));
+        chessModel.loadFen("rnbqkbnr/p1pppppp/8/8/PpP4P/8/1P1PPPP1/RNBQKBNR b KQkq c3 0 3");
+        assertEquals(0x3c8123ea7b067637L, OpeningBook.key(chessModel));
+        chessModel.loadFen("rnbqkbnr/p1pppppp/8/8/P6P/R1p5/1P1PPPP1/1NBQKBNR b Kkq - 0 4");
+        assertEquals(0x5c3f9b829b279560L, OpeningBook.key(chessModel));
+    }
+
+    @Test
+    public void testLookup() throws Exception {
+        ChessModel chessModel = new ChessModel();
+        chessModel.reset();
+        long start = OpeningBook.key(chessModel);
+        chessModel.loadFen("rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq - 0 1");
+        long afterE4 = OpeningBook.key(chessModel);
+        assertFalse(start == afterE4);
+
+        OpeningBook book = OpeningBook.open(writeBook(
+                new long[]{start, square("e2"), square("e4"), 3},
+                new long[]{start, square("d2"), square("d4"), 1},
+                new long[]{start, square("g1"), square("g3"), 50},
+                new long[]{start, square("c2"), square("c4"), 0},
+                new long[]{afterE4, square("c7"), square("c5"), 7},
+                new long[]{-1L, square("a2"), square("a3"), 1},
+                new long[]{1L, square("a2"), square("a3"), 1}));
+        assertEquals(7, book.size());
+
+        //the illegal Ng3 is dropped, heaviest first
+        chessModel.reset();
+        List<OpeningBook.BookMove> found = book.lookup(chessModel, new MoveList());
+        assertEquals("[e2e4 3, d2d4 1, c2c4 0]", found.toString());
+
+        //picks follow the weights and never choose a weight of 0
+        Random random = new Random(1);
+        int[] counts = new int[2];
+        for (int i = 0; i < 400; i++) {
+            String move = Move.toUci(book.pickMove(chessModel, new MoveList(), random));
+            assertTrue(move, move.equals("e2e4") || move.equals("d2d4"));
+            counts[move.equals("e2e4") ? 0 : 1]++;
+        }
+        assertTrue(counts[0] > 240 && counts[1] > 60);
+
+        //reached by a move instead of a fen, same key
+        chessModel.makeMove(chessModel.findMove(4, 1, 4, 3));
+        assertEquals(afterE4, OpeningBook.key(chessModel));
+        assertEquals("c7c5", Move.toUci(book.pickMove(chessModel, new MoveList(), random)));
+
+        chessModel.makeMove(chessModel.findMove(2, 6, 2, 4));
+        assertEquals(Move.NONE, book.pickMove(chessModel, new MoveList(), random));
+        assertTrue(book.lookup(chessModel, new MoveList()).isEmpty());
+    }
+
+    @Test
+    public void testUciBook() throws Exception {
+        ChessModel chessModel = new ChessModel();
+        chessModel.reset();
+        Path path = writeBook(new long[]{OpeningBook.key(chessModel), square("g1"), square("f3"), 1});
+
+        String commands = "setoption name BookFile value " + path + "\nposition startpos\nbook\ngo depth 5\nquit\n";
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new Uci(new ByteArrayInputStream(commands.getBytes()), new PrintStream(output, true)).run();
+        assertTrue(output.toString().contains("info string book g1f3 1"));
+        assertTrue(output.toString().contains("bestmove g1f3"));
+        assertFalse(output.toString().contains("info depth"));
+    }
+}
@@ -0,0 +1,70 @@
+package org.example;
+
+import org.junit.Test;
+
+import static junit.framework.TestCase.assertEquals;
+
+//node counts from the standard perft positions (chessprogramming.org/Perft_Results)
+public class PerftTest {
+
+    private static long perft(String fen, int depth) {
+        ChessModel chessModel = new ChessModel();
+        chessModel.loadFen(fen);
+        return new Perft(chessModel, depth).perft(depth);
+    }
+
+    @Test
+    public void testStartPosition() {
+        assertEquals(20, perft(ChessConstants.startFen, 1));
+        assertEquals(400, perft(ChessConstants.startFen, 2));
+        assertEquals(8902, perft(ChessConstants.startFen, 3));
+        assertEquals(197281, perft(ChessConstants.startFen, 4));
+    }
+
+    //"Kiwipete", castling, en passant and promotions from the first ply
+    @Test
+    public void testKiwipete() {
+        String fen = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+        assertEquals(48, perft(fen, 1));
+        assertEquals(2039, perft(fen, 2));
+        assertEquals(97862, perft(fen, 3));
+    }
+
+    //"position 3", en passant with the king on the same row as the pawns
+    @Test
+    public void testPosition3() {
+        String fen = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+        assertEquals(14, perft(fen, 1));
+        assertEquals(191, perft(fen, 2));
+        assertEquals(2812, perft(fen, 3));
+        assertEquals(43238, perft(fen, 4));
+        assertEquals(674624, perft(fen, 5));
+    }
+
+    //"position 4", promotions with and without captures, castling out of reach
+    @Test
+    public void testPosition4() {
+        String fen = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+        assertEquals(6, perft(fen, 1));
+        assertEquals(264, perft(fen, 2));
+        assertEquals(9467, perft(fen, 3));
+        assertEquals(422333, perft(fen, 4));
+    }
+
+    @Test
+    public void testPosition5() {
+        String fen = "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8";
+        assertEquals(44, perft(fen, 1));
+        assertEquals(1486, perft(fen, 2));
+        assertEquals(62379, perft(fen, 3));
+    }
+
+    @Test
+    public void testResetMatchesStartFen() {
+        ChessModel fromFen = new ChessModel();
+        fromFen.loadFen(ChessConstants.startFen);
+        ChessModel fromReset = new ChessModel();
+        fromReset.reset();
+        assertEquals(fromReset.toString(), fromFen.toString());
+    }
+}
@@ -0,0 +1,102 @@
+package org.example;
+
+import org.junit.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static junit.framework.TestCase.*;
+
+public class PgnImporterTest {
+
+    private static final String PGN = String.join("\n",
+            "[Event \"Scholar's mate\"]",
+            "[White \"A [bracket] in a tag\"]",
+            "[Result \"1-0\"]",
+            "",
+            "1. e4 e5 2. Bc4 {aiming at f7} Nc6 $2 (2... Nf6 3. d3) 3. Qh5 Nf6?? 4. Qxf7# 1-0",
+            "",
+            "[Event \"From a FEN\"]",
+            "[SetUp \"1\"]",
+            "[FEN \"4k3/8/8/8/8/8/8/R3K3 w - - 0 1\"]",
+            "",
+            "1. Ra8+ Kd7 *",
+            "",
+            "[Event \"Illegal king move\"]",
+            "",
+            "1. e4 e5 2. Ke3 Nf6 0-1",
+            "",
+            "[Event \"No spaces\"]",
+            "",
+            "1.d4 d5 2.c4 dxc4 1/2-1/2",
+            "",
+            "[Event \"Comments\"]",
+            "; a whole line",
+            "1. e4 {a comment over",
+            "[two lines]} e5 2. Nf3 Nc6 *",
+            "");
+
+    @Test
+    public void testImport() throws Exception {
+        Path file = Files.createTempFile("games", ".pgn");
+        try {
+            Files.writeString(file, PGN);
+            AtomicLong replayed = new AtomicLong();
+
+            //tiny windows so games run over the end of a mapping, and on one thread as well as several
+            for (long windowSize : new long[]{7, 1 << 20}) {
+                for (int threads : new int[]{1, 3}) {
+                    replayed.set(0);
+                    PgnImporter.Report report = new PgnImporter(threads, (n, model) -> replayed.incrementAndGet(), windowSize)
+                            .importFile(file);
+                    assertEquals(4, report.getGames());
+                    assertEquals(1, report.getBadGames());
+                    assertEquals(7 + 2 + 4 + 4, report.getPlies());
+                    assertEquals(4, replayed.get());
+                    assertEquals(1, report.getDiagnostics().size());
+                    assertTrue(report.getDiagnostics().get(0), report.getDiagnostics().get(0).startsWith("game 3 at byte "));
+                    assertTrue(report.getDiagnostics().get(0).endsWith("illegal move Ke3 at ply 3"));
+                }
+            }
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    @Test
+    public void testSan() {
+        ChessModel chessModel = new ChessModel();
+        MoveList moves = new MoveList();
+        MoveList scratch = new MoveList();
+
+        //every legal move survives format and parse, castling, en passant and promotions too
+        String[] fens = {
+                "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+                "r3k2r/1P6/8/3pP3/8/8/8/R3K2R w KQkq d6 0 1",
+        };
+        for (String fen : fens) {
+            chessModel.loadFen(fen);
+            int count = chessModel.generateLegalMoves(moves);
+            for (int i = 0; i < count; i++) {
+                String san = San.format(chessModel, moves.get(i), scratch);
+                assertEquals(san, moves.get(i), San.parse(chessModel, san, scratch));
+            }
+        }
+        assertEquals("O-O-O", San.format(chessModel, San.parse(chessModel, "O-O-O", scratch), scratch));
+        assertEquals("exd6", San.format(chessModel, San.parse(chessModel, "exd6", scratch), scratch));
+        assertEquals("bxa8=N", San.format(chessModel, San.parse(chessModel, "bxa8N", scratch), scratch));
+        assertEquals(San.ILLEGAL, San.parse(chessModel, "b8", scratch));
+
+        //rooks on the same file, knights on the same rank
+        chessModel.loadFen("R7/8/7k/8/8/8/8/R1N1N1K1 w - - 0 1");
+        assertEquals("R1a4", San.format(chessModel, San.parse(chessModel, "R1a4", scratch), scratch));
+        assertEquals("Ncd3", San.format(chessModel, San.parse(chessModel, "Ncd3", scratch), scratch));
+        assertEquals(San.AMBIGUOUS, San.parse(chessModel, "Ra4", scratch));
+        assertEquals(San.AMBIGUOUS, San.parse(chessModel, "Nd3", scratch));
+        assertEquals(San.ILLEGAL, San.parse(chessModel, "Qd3", scratch));
+        assertEquals(San.INVALID, San.parse(chessModel, "Nz9", scratch));
+        assertEquals("R8a7", San.format(chessModel, San.parse(chessModel, "Ra8a7", scratch), scratch));
+        assertEquals("Rh8+", San.format(chessModel, San.parse(chessModel, "Rh8", scratch), scratch));
+    }
+}
@@ -0,0 +1,103 @@
+package org.example;
+
+import org.junit.Test;
+
+import java.net.ProtocolException;
+import java.nio.ByteBuffer;
+
+import static junit.framework.TestCase.*;
+
+public class ProtocolTest {
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        int move = Move.of(12, 28, Move.DOUBLE_PUSH);
+        assertTrue(Protocol.hello(buffer));
+        assertTrue(Protocol.start(buffer, 7, Player.BLACK, -5L));
+        assertTrue(Protocol.move(buffer, 7, 41, move, 0x8000_0000_1234_5678L));
+        assertTrue(Protocol.error(buffer, 7, 41, Protocol.ILLEGAL_MOVE));
+        assertTrue(Protocol.resume(buffer, 7, -5L));
+        assertTrue(Protocol.snapshot(buffer, 7, Protocol.SPECTATOR, 99L, "8/8/8/8/8/8/8/K6k b - - 0 1"));
+        assertTrue(Protocol.leave(buffer, 7));
+        assertTrue(Protocol.watch(buffer, 8));
+        buffer.flip();
+
+        Protocol.Message m = new Protocol.Message();
+        assertTrue(Protocol.decode(buffer, m));
+        assertEquals(Protocol.HELLO, m.type);
+        assertEquals(Protocol.VERSION, m.code);
+        assertTrue(Protocol.decode(buffer, m));
+        assertEquals(Protocol.START, m.type);
+        assertEquals(Player.BLACK.ordinal(), m.code);
+        assertEquals(-5L, m.token);
+        assertTrue(Protocol.decode(buffer, m));
+        assertEquals(Protocol.MOVE, m.type);
+        assertEquals(7, m.gameId);
+        assertEquals(41, m.sequence);
+        assertEquals(move, m.move);
+        assertEquals(0x8000_0000_1234_5678L, m.hash);
+        assertTrue(Protocol.decode(buffer, m));
+        assertEquals(Protocol.ERROR, m.type);
+        assertEquals(Protocol.ILLEGAL_MOVE, m.code);
+        assertTrue(Protocol.decode(buffer, m));
+        assertEquals(Protocol.RESUME, m.type);
+        assertEquals(Protocol.VERSION, m.code);
+        assertEquals(-5L, m.token);
+        assertTrue(Protocol.decode(buffer, m));
+        assertEquals(Protocol.SNAPSHOT, m.type);
+        assertEquals(Protocol.SPECTATOR, m.code);
+        assertEquals(99L, m.hash);
+        assertEquals("8/8/8/8/8/8/8/K6k b - - 0 1", m.fen.toString());
+        assertTrue(Protocol.decode(buffer, m));
+        assertEquals(Protocol.LEAVE, m.type);
+        assertTrue(Protocol.decode(buffer, m));
+        assertEquals(Protocol.WATCH, m.type);
+        assertEquals(8, m.gameId);
+        assertFalse(Protocol.decode(buffer, m));
+    }
+
+    @Test
+    public void testPartialAndBadFrames() throws Exception {
+        ByteBuffer full = ByteBuffer.allocate(64);
+        Protocol.move(full, 1, 2, Move.of(1, 18, Move.QUIET), 3);
+        full.flip();
+
+        //arrives one byte at a time
+        ByteBuffer in = ByteBuffer.allocate(64);
+        Protocol.Message m = new Protocol.Message();
+        for (int i = 0; i < full.limit() - 1; i++) {
+            in.put(full.get(i));
+            in.flip();
+            assertFalse(Protocol.decode(in, m));
+            in.compact();
+        }
+        in.put(full.get(full.limit() - 1)).flip();
+        assertTrue(Protocol.decode(in, m));
+        assertEquals(Move.of(1, 18, Move.QUIET), m.move);
+
+        //no room, nothing written
+        ByteBuffer small = ByteBuffer.allocate(10);
+        assertFalse(Protocol.move(small, 1, 2, 3, 4));
+        assertEquals(0, small.position());
+
+        try {
+            Protocol.decode(ByteBuffer.wrap(new byte[]{0, 2, 99, 0}), m);
+            fail();
+        } catch (ProtocolException expected) {
+        }
+        try {
+            Protocol.decode(ByteBuffer.wrap(new byte[]{0, 5, Protocol.HELLO, 1, 0, 0, 0}), m);
+            fail();
+        } catch (ProtocolException expected) {
+        }
+        //a snapshot needs a position
+        ByteBuffer snapshot = ByteBuffer.allocate(16);
+        snapshot.putShort((short) 14).put((byte) Protocol.SNAPSHOT).put(new byte[13]).flip();
+        try {
+            Protocol.decode(snapshot, m);
+            fail();
+        } catch (ProtocolException expected) {
+        }
+    }
+}
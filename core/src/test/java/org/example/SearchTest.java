@@ -0,0 +1,77 @@
+package org.example;
+
+import org.junit.Test;
+
+import static junit.framework.TestCase.*;
+
+public class SearchTest {
+
+    private static SearchResult search(String fen, SearchLimits limits) {
+        ChessModel chessModel = new ChessModel();
+        chessModel.loadFen(fen);
+        return new Search(new TranspositionTable(4)).search(chessModel, limits);
+    }
+
+    @Test
+    public void testFindsMateInOne() {
+        //back rank mate Ra8#
+        SearchResult result = search("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1", SearchLimits.depth(4));
+        assertEquals("a1a8", Move.toUci(result.getBestMove()));
+        assertEquals(Search.MATE - 1, result.getScore());
+    }
+
+    @Test
+    public void testWinsHangingQueen() {
+        SearchResult result = search("4k3/8/8/3q4/8/8/3R4/4K3 w - - 0 1", SearchLimits.depth(5));
+        assertEquals("d2d5", Move.toUci(result.getBestMove()));
+    }
+
+    @Test
+    public void testNodeLimit() {
+        SearchResult result = search(ChessConstants.startFen, SearchLimits.nodes(20_000));
+        assertTrue(result.getBestMove() != Move.NONE);
+        assertTrue(result.getDepth() >= 1);
+    }
+
+    @Test
+    public void testParallelSearch() {
+        ChessModel chessModel = new ChessModel();
+        chessModel.loadFen("6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1");
+        ParallelSearch search = new ParallelSearch(new TranspositionTable(4), 3);
+
+        SearchResult result = search.search(chessModel, SearchLimits.depth(4));
+        assertEquals("a1a8", Move.toUci(result.getBestMove()));
+
+        chessModel.reset();
+        result = search.search(chessModel, SearchLimits.time(200));
+        assertTrue(result.getBestMove() != Move.NONE);
+        search.shutdown();
+    }
+
+    //a stop between prepareSearch() and search() isn't lost, one after the search returned is
+    @Test(timeout = 10_000)
+    public void testStopBeforeStart() {
+        ChessModel chessModel = new ChessModel();
+        chessModel.reset();
+        ParallelSearch search = new ParallelSearch(new TranspositionTable(4), 2);
+
+        search.prepareSearch();
+        search.stop();
+        SearchResult result = search.search(chessModel, SearchLimits.infinite());
+        assertTrue(result.getBestMove() != Move.NONE);
+
+        search.stop();
+        result = search.search(chessModel, SearchLimits.depth(4));
+        assertEquals(4, result.getDepth());
+        search.shutdown();
+    }
+
+    @Test
+    public void testSearchDoesNotChangePosition() {
+        ChessModel chessModel = new ChessModel();
+        chessModel.reset();
+        String before = chessModel.toString();
+        new Search(new TranspositionTable(4)).search(chessModel, SearchLimits.depth(4));
+        assertEquals(before, chessModel.toString());
+    }
+}
@@ -0,0 +1,45 @@
+package org.example;
+
+import java.util.function.Consumer;
+import java.util.function.ToIntFunction;
+
+import static junit.framework.TestCase.*;
+
+//positions and walks shared by the evaluation tests
+final class TestPositions {
+
+    static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    //Kiwipete turned over with the colours swapped, black to move
+    static final String KIWIPETE_MIRRORED = "r3k2r/pppbbppp/2n2q1P/1P2p3/3pn3/BN2PNP1/P1PPQPB1/R3K2R b KQkq - 0 1";
+    static final String POSITION_4 = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+
+    private TestPositions() {
+    }
+
+    //calls visit after every move and reply from the model's position, castling, en passant and
+    //promotions included there, and leaves the model as it found it
+    static void forEachWithinTwoPlies(ChessModel chessModel, Consumer<ChessModel> visit) {
+        MoveList moves = new MoveList();
+        MoveList replies = new MoveList();
+        int count = chessModel.generateLegalMoves(moves);
+        for (int i = 0; i < count; i++) {
+            chessModel.makeMove(moves.get(i));
+            visit.accept(chessModel);
+            int replyCount = chessModel.generateLegalMoves(replies);
+            for (int j = 0; j < replyCount; j++) {
+                chessModel.makeMove(replies.get(j));
+                visit.accept(chessModel);
+                chessModel.unmakeMove();
+            }
+            chessModel.unmakeMove();
+        }
+    }
+
+    //score, for the side to move, must not tell Kiwipete from its mirror image
+    static void assertColourBlind(ChessModel chessModel, ToIntFunction<ChessModel> score) {
+        chessModel.loadFen(KIWIPETE);
+        int white = score.applyAsInt(chessModel);
+        chessModel.loadFen(KIWIPETE_MIRRORED);
+        assertEquals(white, score.applyAsInt(chessModel));
+    }
+}
@@ -0,0 +1,68 @@
+package org.example;
+
+import org.junit.Test;
+
+import java.util.SplittableRandom;
+
+import static junit.framework.TestCase.*;
+
+public class TranspositionTableTest {
+
+    @Test
+    public void testStoreProbe() {
+        TranspositionTable table = new TranspositionTable(1);
+        int move = Move.of(12, 28, Move.DOUBLE_PUSH);
+
+        assertEquals(TranspositionTable.MISS, table.probe(42L));
+        table.store(42L, move, -123, 7, TranspositionTable.BOUND_LOWER);
+
+        long entry = table.probe(42L);
+        assertEquals(move, TranspositionTable.move(entry));
+        assertEquals(-123, TranspositionTable.score(entry));
+        assertEquals(7, TranspositionTable.depth(entry));
+        assertEquals(TranspositionTable.BOUND_LOWER, TranspositionTable.bound(entry));
+
+        //same bucket, different key
+        assertEquals(TranspositionTable.MISS, table.probe(42L + table.capacity()));
+    }
+
+    @Test
+    public void testDeepEntrySurvivesShallowStore() {
+        TranspositionTable table = new TranspositionTable(1);
+        long deep = 8L;
+        table.store(deep, Move.NONE, 10, 12, TranspositionTable.BOUND_EXACT);
+        for (int i = 1; i <= 10; i++) {
+            table.store(deep + (long) i * table.capacity(), Move.NONE, 0, 1, TranspositionTable.BOUND_EXACT);
+        }
+        assertEquals(12, TranspositionTable.depth(table.probe(deep)));
+    }
+
+    //threads hammering the same few buckets must never read back another key's data
+    @Test
+    public void testConcurrentAccess() throws InterruptedException {
+        TranspositionTable table = new TranspositionTable(1);
+        Thread[] threads = new Thread[4];
+        boolean[] failed = new boolean[1];
+
+        for (int t = 0; t < threads.length; t++) {
+            long seed = t;
+            threads[t] = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                for (int i = 0; i < 200_000; i++) {
+                    long key = random.nextLong(64) * table.capacity() + random.nextInt(8);
+                    //depth is derived from the key so any hit can be checked
+                    int depth = (int) (key % 100);
+                    table.store(key, Move.NONE, 0, depth, TranspositionTable.BOUND_EXACT);
+                    long entry = table.probe(key ^ 1);
+                    if (entry != TranspositionTable.MISS && TranspositionTable.depth(entry) != (int) ((key ^ 1) % 100)) {
+                        failed[0] = true;
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) thread.join();
+
+        assertFalse(failed[0]);
+    }
+}
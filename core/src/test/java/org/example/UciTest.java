@@ -0,0 +1,74 @@
+package org.example;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.PrintStream;
+
+import static junit.framework.TestCase.*;
+
+public class UciTest {
+
+    private static String run(String commands) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        new Uci(new ByteArrayInputStream(commands.getBytes()), new PrintStream(output, true)).run();
+        return output.toString();
+    }
+
+    //sends commands, waits for a line starting with until and then quits, as "quit" stops a search
+    private static String runUntil(String commands, String until) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        PipedOutputStream input = new PipedOutputStream();
+        Uci uci = new Uci(new PipedInputStream(input), new PrintStream(output, true));
+        Thread thread = new Thread(() -> {
+            try {
+                uci.run();
+            } catch (Exception ex) {
+                ex.printStackTrace();
+            }
+        });
+        thread.start();
+        input.write(commands.getBytes());
+        input.flush();
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!output.toString().contains(until) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        input.write("quit\n".getBytes());
+        input.close();
+        thread.join();
+        return output.toString();
+    }
+
+    @Test
+    public void testHandshake() throws Exception {
+        String output = run("uci\nisready\nquit\n");
+        assertTrue(output.contains("id name "));
+        assertTrue(output.contains("option name Hash type spin"));
+        assertTrue(output.contains("uciok"));
+        assertTrue(output.contains("readyok"));
+    }
+
+    @Test
+    public void testPositionAndGo() throws Exception {
+        //the moves are applied: after 1.e4 e5 white has 29 moves
+        String output = run("position startpos moves e2e4 e7e5\nperft 1\nquit\n");
+        assertEquals(29, output.split(": 1\n", -1).length - 1);
+
+        //refused, and the engine is still there for the next command
+        output = run("perft 0\nperft -2\nperft 1\nquit\n");
+        assertEquals(2, output.split("info string perft depth must be at least 1", -1).length - 1);
+        assertEquals(20, output.split(": 1\n", -1).length - 1);
+
+        output = runUntil("position fen 6k1/5ppp/8/8/8/8/8/R5K1 w - - 0 1\ngo depth 3\n", "bestmove");
+        assertTrue(output.contains("info depth 1 score mate 1"));
+        assertTrue(output.contains("bestmove a1a8"));
+
+        output = run("position startpos moves e2e5\nsetoption name Threads value 2\ngo nodes 5000\nstop\nquit\n");
+        assertTrue(output.contains("info string illegal move e2e5"));
+        assertTrue(output.contains("bestmove "));
+    }
+}
@@ -0,0 +1,494 @@
+package org.example;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class ChessController implements ChessDelegate, ActionListener {
+//    private String SOCKET_SERVER_IP = "172.20.10.2";
+
+    private String SOCKET_SERVER_IP = "localhost";
+    private int PORT = 50000;
+    private JFrame frame;
+    private ChessModel chessModel = new ChessModel();
+    private ChessView chessBoardPanel;
+    private JButton resetBtn;
+    private JButton serverBtn;
+    private JButton clientBtn;
+    private JButton computerBtn;
+
+
+    //Networking Part
+
+    private GameServer gameServer;
+    //replaced by the network thread when it reconnects
+    private volatile SocketChannel channel;
+    // Moves are only sent from the EDT, so one buffer will do
+    private final ByteBuffer sendBuffer = ByteBuffer.allocate(Protocol.MAX_FRAME_SIZE);
+    private volatile int gameId;
+    //from START, shown with RESUME to get our seat back after the connection drops
+    private volatile long resumeToken;
+    private volatile boolean inGame;
+    //when our last MOVE went out, for the round trip to its ACK
+    private volatile long moveSentNanos;
+    private static final int RECONNECT_ATTEMPTS = 5;
+    private static final int RECONNECT_DELAY_MILLIS = 500;
+    private final MoveList receivedMoves = new MoveList();
+    private boolean isServer = false;
+    private boolean isClient = false;
+    //colour the game server paired us as, null until a second player connects
+    private volatile Player networkPlayer;
+    private final ExecutorService networkExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "chess-network");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    //Computer opponent, plays black and thinks on its own thread so the EDT stays responsive
+
+    private static final int COMPUTER_MOVE_MILLIS = 2000;
+    private static final int HASH_SIZE_MB = 64;
+    private final ExecutorService engineExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "chess-engine");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final ParallelSearch search = new ParallelSearch(new TranspositionTable(HASH_SIZE_MB),
+            Runtime.getRuntime().availableProcessors());
+    private boolean isComputer = false;
+    //opening book from -Dchess.book=<file.bin>, null to always search
+    private final OpeningBook book = openBook(System.getProperty("chess.book"));
+    private final Random bookRandom = new Random();
+    //endgame bitbases from -Dchess.bitbases=<directory>, made by BitbaseGenerator
+    private final Bitbases bitbases = openBitbases(System.getProperty("chess.bitbases"));
+
+
+
+
+
+    public ChessController() {
+        chessModel.reset();
+        search.setBitbases(bitbases);
+        frame = new JFrame("Chess");
+        frame.setSize(500, 550);
+        frame.setLayout(new BorderLayout());
+
+        chessBoardPanel = new ChessView(this);
+        frame.add(chessBoardPanel, BorderLayout.CENTER);
+
+        var buttonsPanel = new JPanel(new FlowLayout(FlowLayout.CENTER));
+        resetBtn = new JButton("Reset");
+        resetBtn.addActionListener(this);
+        buttonsPanel.add(resetBtn);
+
+        serverBtn = new JButton("Listen");
+        buttonsPanel.add(serverBtn);
+        serverBtn.addActionListener(this);
+
+        clientBtn = new JButton("Connect");
+        buttonsPanel.add(clientBtn);
+        clientBtn.addActionListener(this);
+
+        computerBtn = new JButton("Computer");
+        buttonsPanel.add(computerBtn);
+        computerBtn.addActionListener(this);
+
+        frame.add(buttonsPanel, BorderLayout.PAGE_END);
+        frame.setVisible(true);
+        frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+
+        frame.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                super.windowClosing(e);
+                search.shutdown();
+                engineExecutor.shutdownNow();
+                try {
+                    leaveGame();
+                } catch (IOException ex) {
+                    ex.printStackTrace();
+                }
+                networkExecutor.shutdownNow();
+                if (gameServer != null) gameServer.stop();
+            }
+        });
+    }
+
+    @Override
+    public ChessPiece pieceAt(int col, int row) {
+        return chessModel.pieceAt(col, row);
+    }
+
+    @Override
+    public void movePiece(int fromCol, int fromRow, int toCol, int toRow) {
+        ChessPiece piece = chessModel.pieceAt(fromCol, fromRow);
+        if (!isMovable(piece)) return;
+
+        if (chessModel.isValidMove(fromCol, fromRow, toCol, toRow)) {
+            int move = chessModel.findMove(fromCol, fromRow, toCol, toRow);
+            int sequence = chessModel.getPly();
+            // Nothing goes to the server or the engine unless the move was made here
+            if (!chessModel.movePiece(fromCol, fromRow, toCol, toRow)) return;
+            chessBoardPanel.boardChanged();
+
+            if (isClient) {
+                sendBuffer.clear();
+                Protocol.move(sendBuffer, gameId, sequence, move, chessModel.getHash());
+                moveSentNanos = System.nanoTime();
+                send();
+            }
+            if (isComputer) {
+                runComputerMove();
+            }
+        }
+    }
+
+    @Override
+    public boolean isValidMove(int fromCol, int fromRow, int toCol, int toRow) {
+        ChessPiece piece = chessModel.pieceAt(fromCol, fromRow);
+        if (!isMovable(piece)) return false;
+
+        return chessModel.isValidMove(fromCol, fromRow, toCol, toRow);
+    }
+
+    @Override
+    public int generateMovesFrom(int col, int row, MoveList moves) {
+        moves.clear();
+        ChessPiece piece = chessModel.pieceAt(col, row);
+        if (!isMovable(piece)) return 0;
+
+        return chessModel.generateMovesFrom(Bitboards.square(col, row), moves);
+    }
+
+    // A piece of ours whose side is on move. The model finds moves for whoever owns the piece,
+    // so without the turn check a drag while the computer thinks would pass as valid.
+    private boolean isMovable(ChessPiece piece) {
+        return piece != null && piece.getPlayer() == chessModel.getPlayerInTurn() && isLocalPiece(piece);
+    }
+
+    // Check if it's the correct player's turn based on connection type
+    private boolean isLocalPiece(ChessPiece piece) {
+        if (isComputer) return piece.getPlayer() == Player.WHITE;
+        if (isClient) return piece.getPlayer() == networkPlayer;
+        return true;
+    }
+
+    private void runComputerMove() {
+        ChessModel position = new ChessModel();
+        position.copyFrom(chessModel);
+        // So that Reset stops it even before the engine thread has started it
+        search.prepareSearch();
+
+        engineExecutor.execute(() -> {
+            int bestMove = book == null ? Move.NONE : book.pickMove(position, new MoveList(), bookRandom);
+            if (bestMove != Move.NONE) {
+                System.out.println("computer move: " + Move.toUci(bestMove) + " from book");
+            } else {
+                SearchResult result = search.search(position, SearchLimits.time(COMPUTER_MOVE_MILLIS));
+                System.out.println("computer move: " + result);
+                bestMove = result.getBestMove();
+            }
+
+            int move = bestMove;
+            SwingUtilities.invokeLater(() -> {
+                // Drop the answer if the game was reset while thinking
+                if (isComputer && move != Move.NONE && chessModel.getHash() == position.getHash()) {
+                    chessModel.makeMove(move);
+                    chessBoardPanel.boardChanged();
+                }
+            });
+        });
+    }
+
+    private static Bitbases openBitbases(String path) {
+        if (path == null) return null;
+        try {
+            return Bitbases.open(Path.of(path));
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            return null;
+        }
+    }
+
+    private static OpeningBook openBook(String path) {
+        if (path == null) return null;
+        try {
+            return OpeningBook.open(Path.of(path));
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            return null;
+        }
+    }
+
+    private void send() {
+        try {
+            sendBuffer.flip();
+            while (sendBuffer.hasRemaining()) {
+                channel.write(sendBuffer);
+            }
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    // Tells the server we're going so it doesn't hold our seat, then closes the connection
+    private void leaveGame() throws IOException {
+        SocketChannel channel = this.channel;
+        this.channel = null;
+        if (channel == null) return;
+        if (inGame) {
+            inGame = false;
+            sendBuffer.clear();
+            Protocol.leave(sendBuffer, gameId);
+            sendBuffer.flip();
+            while (sendBuffer.hasRemaining()) {
+                channel.write(sendBuffer);
+            }
+        }
+        channel.close();
+    }
+
+    private void receiveMessages(SocketChannel channel) {
+        while (channel != null) {
+            ByteBuffer in = ByteBuffer.allocate(Protocol.MAX_FRAME_SIZE * 4);
+            Protocol.Message message = new Protocol.Message();
+            try {
+                while (channel.read(in) >= 0) {
+                    in.flip();
+                    while (Protocol.decode(in, message)) {
+                        receiveMessage(message);
+                    }
+                    in.compact();
+                }
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+            channel = resume(channel);
+        }
+    }
+
+    // The connection dropped in the middle of a game: connects again and asks for our seat
+    // back, the server answers with a SNAPSHOT. Null if we left on purpose or gave up.
+    private SocketChannel resume(SocketChannel lost) {
+        for (int attempt = 1; attempt <= RECONNECT_ATTEMPTS; attempt++) {
+            if (channel != lost || !inGame) return null;
+            try {
+                Thread.sleep((long) RECONNECT_DELAY_MILLIS * attempt);
+                SocketChannel channel = SocketChannel.open(new InetSocketAddress(SOCKET_SERVER_IP, PORT));
+                ByteBuffer out = ByteBuffer.allocate(Protocol.MAX_FRAME_SIZE);
+                Protocol.resume(out, gameId, resumeToken);
+                out.flip();
+                while (out.hasRemaining()) {
+                    channel.write(out);
+                }
+                if (this.channel != lost) {
+                    // Reset while we were connecting
+                    channel.close();
+                    return null;
+                }
+                this.channel = channel;
+                System.out.println("reconnected, resuming game " + gameId);
+                return channel;
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return null;
+            } catch (IOException ex) {
+                System.out.println("reconnect attempt " + attempt + " failed: " + ex.getMessage());
+            }
+        }
+        inGame = false;
+        return null;
+    }
+
+    private void receiveMessage(Protocol.Message message) {
+        switch (message.type) {
+            case Protocol.START:
+                // The game server tells us our colour once paired
+                gameId = message.gameId;
+                resumeToken = message.token;
+                inGame = true;
+                networkPlayer = Player.values()[message.code];
+                SwingUtilities.invokeLater(() -> {
+                    frame.setTitle("Chess Client (" + networkPlayer + ")");
+                    chessModel.reset();
+                    chessBoardPanel.repaint();
+                });
+                break;
+            case Protocol.ACK:
+                if (Metrics.ENABLED) Metrics.ROUND_TRIP.record(System.nanoTime() - moveSentNanos);
+                break;
+            case Protocol.MOVE:
+                if (Metrics.ENABLED) Metrics.MOVES_RECEIVED.increment();
+                int wireMove = message.move;
+                int sequence = message.sequence;
+                long hash = message.hash;
+                System.out.println("chess move received: " + Move.toUci(wireMove));
+
+                SwingUtilities.invokeLater(() -> {
+                    int move = Protocol.findLegalMove(chessModel, wireMove, receivedMoves);
+                    if (move == Move.NONE || sequence != chessModel.getPly()) {
+                        System.out.println("out of sync with the server at move " + sequence);
+                        requestSnapshot();
+                        return;
+                    }
+                    chessModel.makeMove(move);
+                    chessBoardPanel.boardChanged();
+                    if (chessModel.getHash() != hash) {
+                        System.out.println("position differs from the server's after move " + sequence);
+                        requestSnapshot();
+                    }
+                });
+                break;
+            case Protocol.SNAPSHOT:
+                // Back after a reconnect or asked for, the server's position replaces whatever we have.
+                // Read into a model of its own so a bad FEN leaves ours as it was.
+                ChessModel snapshot = new ChessModel();
+                try {
+                    snapshot.loadFen(message.fen);
+                } catch (IllegalArgumentException ex) {
+                    System.out.println("bad snapshot from the server: " + ex.getMessage());
+                    break;
+                }
+                if (snapshot.getHash() != message.hash) {
+                    System.out.println("position differs from the server's snapshot");
+                }
+                networkPlayer = Player.values()[message.code];
+                SwingUtilities.invokeLater(() -> {
+                    chessModel.copyFrom(snapshot);
+                    chessBoardPanel.boardChanged();
+                });
+                break;
+            case Protocol.ERROR:
+                int code = message.code;
+                int errorSequence = message.sequence;
+                System.out.println("server error " + code + " for move " + errorSequence);
+                if (code == Protocol.UNKNOWN_GAME) {
+                    inGame = false;
+                } else if (code == Protocol.ILLEGAL_MOVE || code == Protocol.OUT_OF_SEQUENCE
+                        || code == Protocol.DESYNC || code == Protocol.NOT_YOUR_TURN) {
+                    SwingUtilities.invokeLater(() -> moveRefused(errorSequence, code));
+                }
+                break;
+            case Protocol.GAME_OVER:
+                System.out.println("game over, reason " + message.code);
+                inGame = false;
+                break;
+        }
+    }
+
+    // The server didn't play our move. If it is the last one on our board and the boards agreed
+    // before it, taking it back is enough; otherwise we ask for the server's position.
+    private void moveRefused(int sequence, int code) {
+        if ((code == Protocol.ILLEGAL_MOVE || code == Protocol.OUT_OF_SEQUENCE)
+                && sequence == chessModel.getPly() - 1 && chessModel.getUndoCount() > 0
+                && chessModel.getPlayerInTurn() != networkPlayer) {
+            chessModel.unmakeMove();
+            chessBoardPanel.boardChanged();
+        } else {
+            requestSnapshot();
+        }
+    }
+
+    // RESUME on the connection we play on, answered with a SNAPSHOT. Only from the EDT, like moves.
+    private void requestSnapshot() {
+        if (!inGame || channel == null) return;
+        sendBuffer.clear();
+        Protocol.resume(sendBuffer, gameId, resumeToken);
+        send();
+    }
+
+    // Hosts a GameServer in this process and joins it, being the first to connect we get white
+    private void runSocketServer() {
+        try {
+            gameServer = new GameServer(PORT);
+            gameServer.start();
+            System.out.println("Server is listening on port " + PORT);
+            isServer = true;
+        } catch (IOException ex) {
+            ex.printStackTrace();
+            return;
+        }
+        runSocketClient();
+    }
+
+    private void runSocketClient() {
+        try {
+            SocketChannel channel = SocketChannel.open(new InetSocketAddress(SOCKET_SERVER_IP, PORT));
+            this.channel = channel;
+            System.out.println("Client connected to port " + PORT);
+
+            isClient = true;
+            sendBuffer.clear();
+            Protocol.hello(sendBuffer);
+            send();
+            networkExecutor.execute(() -> {
+                receiveMessages(channel);
+            });
+        } catch (IOException ex) {
+            ex.printStackTrace();
+        }
+    }
+
+    @Override
+    public void actionPerformed(ActionEvent e) {
+        if (e.getSource() == resetBtn) {
+            search.stop();
+            isComputer = false;
+            computerBtn.setEnabled(true);
+            chessModel.reset();
+            chessBoardPanel.repaint();
+            try {
+                if (gameServer != null) {
+                    gameServer.stop();
+                    gameServer = null;
+                }
+                leaveGame();
+                networkPlayer = null;
+                serverBtn.setEnabled(true);
+                clientBtn.setEnabled(true);
+                isServer = false;
+                isClient = false;
+            } catch (IOException ex) {
+                ex.printStackTrace();
+            }
+        } else if (e.getSource() == serverBtn) {
+            serverBtn.setEnabled(false);
+            clientBtn.setEnabled(false);
+            computerBtn.setEnabled(false);
+            frame.setTitle("Chess Server (White)");
+            runSocketServer();
+            JOptionPane.showMessageDialog(frame, "Listening on PORT " + PORT);
+        } else if (e.getSource() == clientBtn) {
+            serverBtn.setEnabled(false);
+            clientBtn.setEnabled(false);
+            computerBtn.setEnabled(false);
+            frame.setTitle("Chess Client");
+            runSocketClient();
+            JOptionPane.showMessageDialog(frame, "Connected to port " + PORT);
+        } else if (e.getSource() == computerBtn) {
+            serverBtn.setEnabled(false);
+            clientBtn.setEnabled(false);
+            computerBtn.setEnabled(false);
+            frame.setTitle("Chess vs Computer (White)");
+            chessModel.reset();
+            isComputer = true;
+            chessBoardPanel.repaint();
+        }
+    }
+
+    public static void main(String[] args) {
+        Metrics.start();
+        new ChessController();
+    }
+}
\ No newline at end of file
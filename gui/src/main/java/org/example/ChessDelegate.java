@@ -4,5 +4,6 @@ public interface ChessDelegate {
     ChessPiece pieceAt(int col, int row);
     void movePiece(int fromCol, int fromRow, int toCol, int toRow);
     boolean isValidMove(int fromCol, int fromRow, int toCol, int toRow);
+    int generateMovesFrom(int col, int row, MoveList moves);
 
 }
@@ -0,0 +1,407 @@
+package org.example;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.awt.event.MouseListener;
+import java.awt.event.MouseMotionListener;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+//panel
+//own class extend sub class
+public class ChessView extends JPanel implements MouseListener, MouseMotionListener {
+    private final Color lightWoodColor = new Color(222, 184, 135); // Light brown
+    private final Color darkWoodColor = new Color(139, 69, 19);    // Dark brown
+    private static final Color MOVE_DOT_COLOR = new Color(0, 255, 0, 100);
+
+    private ChessDelegate chessDelegate ;
+
+    double scaleFactor = 0.9;
+
+    private int originX = -1;
+    private int originY = -1;
+    private int cellSide = -1;
+
+
+    //piece images from the sprite atlas, null until the loader thread has read it
+    private Map<String, BufferedImage> keyNameValueImage;
+
+    //board and pieces drawn once at a cell size in screen pixels, so a paint only copies them.
+    //The last few sizes are kept, for going back and forth between windows sizes or screens.
+    private static final int CACHED_SIZES = 4;
+    private final Map<Long, ScaledImages> scaledCache = new LinkedHashMap<>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, ScaledImages> eldest) {
+            return size() > CACHED_SIZES;
+        }
+    };
+    private ScaledImages scaled;
+
+    private static class ScaledImages {
+        BufferedImage board;
+        final Map<String, BufferedImage> sprites = new HashMap<>();
+    }
+
+    //for the time to first frame report
+    private final long createdNanos = System.nanoTime();
+    private boolean firstFrameReported;
+    private boolean piecesFrameReported;
+
+    //piece last painted on each square, boardChanged repaints the squares that differ
+    private final ChessPiece[] shownPieces = new ChessPiece[64];
+
+    //legal moves of the picked up piece, refilled on every press
+    private final MoveList legalMoves = new MoveList();
+
+
+    private int fromCol = -1;
+    private int fromRow = -1;
+
+    private ChessPiece movingPiece;
+
+    private Point movingPiecePoint;
+
+
+
+    ChessView(ChessDelegate chessDelegate) {
+
+        this.chessDelegate = chessDelegate;
+
+        // Decoding the images takes longer than showing the window, so it is done off the EDT
+        // and placeholders are drawn until they are in
+        Thread loader = new Thread(() -> {
+            long start = System.nanoTime();
+            try {
+                Map<String, BufferedImage> images = SpriteAtlas.load();
+                long millis = (System.nanoTime() - start) / 1_000_000;
+                SwingUtilities.invokeLater(() -> piecesLoaded(images, millis));
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+            }
+        }, "sprite-loader");
+        loader.setDaemon(true);
+        loader.start();
+
+        addMouseListener(this);
+        addMouseMotionListener(this);
+
+
+
+    }
+
+    //only the squares inside clip are drawn
+    public void drawPieces(Graphics2D g2, Rectangle clip){
+
+        for (int row = 0; row<8; row++)
+        {
+            for (int col = 0; col<8; col++)
+            {
+                if (!clip.intersects(squareBounds(col, row))) continue;
+
+                ChessPiece p = chessDelegate.pieceAt(col,row);
+                shownPieces[Bitboards.square(col, row)] = p;
+
+                if(p!=null && p != movingPiece)
+                {
+                    drawImage(g2,col,row, p);
+                }
+            }
+        }
+
+
+        if(movingPiece != null){
+            if(movingPiecePoint != null)
+            {
+                drawSprite(g2, movingPiece, movingPiecePoint.x - cellSide/2, movingPiecePoint.y - cellSide/2);
+            }else {
+                drawImage(g2,fromCol,fromRow,movingPiece);
+            }
+        }
+
+    }
+
+
+
+    //overwrite one method
+    @Override
+    protected void paintChildren(Graphics g) {
+        long start = Metrics.ENABLED ? System.nanoTime() : 0;
+        paintBoard(g);
+        if (Metrics.ENABLED) Metrics.REPAINT.record(System.nanoTime() - start);
+    }
+
+    private void paintBoard(Graphics g) {
+        super.paintChildren(g);
+
+        int smaller = Math.min(getSize().width,getSize().height);
+        cellSide = (int) (((double)smaller)*scaleFactor/8);
+
+        originX = (getSize().width-8 * cellSide)/2;
+        originY = (getSize().height-8 * cellSide)/2;
+
+        if (cellSide <= 0) return;
+
+        Graphics2D g2 = (Graphics2D) g;
+        updateCache(g2.getTransform().getScaleX());
+
+        // Swing only asks for the dirty region, the rest of the board is left as it is
+        Rectangle clip = g2.getClipBounds();
+        if (clip == null) clip = new Rectangle(getSize());
+
+        g2.drawImage(scaled.board, originX, originY, 8 * cellSide, 8 * cellSide, null);
+        drawPieces(g2, clip);
+
+
+
+
+        //shows valid moves
+
+        g2.setColor(MOVE_DOT_COLOR);
+        for (int i = 0; i < legalMoves.size(); i++) {
+            int to = Move.to(legalMoves.get(i));
+            // Draw the indicators using screen coordinates, row flipped for display
+            g2.fillOval(
+                    originX + Bitboards.col(to) * cellSide + cellSide / 4,
+                    originY + (7 - Bitboards.row(to)) * cellSide + cellSide / 4,
+                    cellSide / 2,
+                    cellSide / 2
+            );
+        }
+
+        reportFrame();
+    }
+
+    private void piecesLoaded(Map<String, BufferedImage> images, long millis) {
+        System.out.println("piece images loaded in " + millis + " ms");
+        keyNameValueImage = images;
+        scaledCache.clear();
+        scaled = null;
+        repaint();
+    }
+
+    private void reportFrame() {
+        if (!firstFrameReported) {
+            firstFrameReported = true;
+            System.out.println("first frame " + (System.nanoTime() - createdNanos) / 1_000_000 + " ms after the board was made, "
+                    + ManagementFactory.getRuntimeMXBean().getUptime() + " ms after start"
+                    + (keyNameValueImage == null ? ", pieces still loading" : ""));
+        }
+        if (!piecesFrameReported && keyNameValueImage != null) {
+            piecesFrameReported = true;
+            System.out.println("first frame with pieces " + (System.nanoTime() - createdNanos) / 1_000_000 + " ms after the board was made");
+        }
+    }
+
+    private void drawImage(Graphics2D g2, int col, int row, ChessPiece piece){
+        drawSprite(g2, piece, originX+col*cellSide, originY+(7-row)*cellSide);
+
+    }
+
+    private void drawSprite(Graphics2D g2, ChessPiece piece, int x, int y) {
+        BufferedImage img = scaled.sprites.get(piece.getImgName());
+        if (img != null) {
+            g2.drawImage(img, x, y, cellSide, cellSide, null);
+            return;
+        }
+        // Placeholder while the images load: a disc in the piece's colour
+        int inset = cellSide / 4;
+        g2.setColor(piece.getPlayer() == Player.WHITE ? Color.WHITE : Color.BLACK);
+        g2.fillOval(x + inset, y + inset, cellSide - 2 * inset, cellSide - 2 * inset);
+        g2.setColor(Color.GRAY);
+        g2.drawOval(x + inset, y + inset, cellSide - 2 * inset, cellSide - 2 * inset);
+    }
+
+    //picks the board and sprites drawn at cellSide for a screen with scale device pixels per pixel,
+    //drawing them if this size isn't cached
+    private void updateCache(double scale) {
+        long key = (long) cellSide << 32 | Float.floatToIntBits((float) scale) & 0xFFFF_FFFFL;
+        scaled = scaledCache.get(key);
+        if (scaled != null) return;
+        scaled = new ScaledImages();
+        scaledCache.put(key, scaled);
+
+        int boardPixels = (int) Math.ceil(8 * cellSide * scale);
+        scaled.board = createCompatibleImage(boardPixels, Transparency.OPAQUE);
+        Graphics2D board = scaled.board.createGraphics();
+        board.scale(scale, scale);
+        drawBoard(board);
+        board.dispose();
+
+        if (keyNameValueImage == null) return;
+        // Scaled once with the slow, smooth filter instead of on every paint
+        int piecePixels = (int) Math.ceil(cellSide * scale);
+        for (Map.Entry<String, BufferedImage> entry : keyNameValueImage.entrySet()) {
+            BufferedImage sprite = createCompatibleImage(piecePixels, Transparency.TRANSLUCENT);
+            Graphics2D g2 = sprite.createGraphics();
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g2.drawImage(entry.getValue(), 0, 0, piecePixels, piecePixels, null);
+            g2.dispose();
+            scaled.sprites.put(entry.getKey(), sprite);
+        }
+    }
+
+    //in the screen's own pixel format, so drawing it is a plain copy
+    private BufferedImage createCompatibleImage(int size, int transparency) {
+        GraphicsConfiguration config = getGraphicsConfiguration();
+        if (config == null) {
+            return new BufferedImage(size, size, transparency == Transparency.OPAQUE
+                    ? BufferedImage.TYPE_INT_RGB : BufferedImage.TYPE_INT_ARGB);
+        }
+        return config.createCompatibleImage(size, size, transparency);
+    }
+
+    //on screen, row flipped for display
+    private Rectangle squareBounds(int col, int row) {
+        return new Rectangle(originX + col * cellSide, originY + (7 - row) * cellSide, cellSide, cellSide);
+    }
+
+    private void repaintSquare(int col, int row) {
+        if (Bitboards.onBoard(col, row)) repaint(squareBounds(col, row));
+    }
+
+    //the area the dragged piece covers around point
+    private void repaintAround(Point point) {
+        repaint(point.x - cellSide / 2, point.y - cellSide / 2, cellSide, cellSide);
+    }
+
+    private void repaintLegalMoves() {
+        for (int i = 0; i < legalMoves.size(); i++) {
+            int to = Move.to(legalMoves.get(i));
+            repaintSquare(Bitboards.col(to), Bitboards.row(to));
+        }
+    }
+
+    //call after the position changed, repaints just the squares whose piece is not the one shown
+    public void boardChanged() {
+        if (cellSide <= 0) {
+            repaint();
+            return;
+        }
+        for (int row = 0; row < 8; row++) {
+            for (int col = 0; col < 8; col++) {
+                if (chessDelegate.pieceAt(col, row) != shownPieces[Bitboards.square(col, row)]) {
+                    repaintSquare(col, row);
+                }
+            }
+        }
+    }
+
+    private void drawSquare(Graphics2D g2, int col, int row, boolean light) {
+        g2.setColor(light ? lightWoodColor : darkWoodColor);
+        g2.fillRect(col * cellSide, row * cellSide, cellSide, cellSide);
+
+
+    }
+
+
+    private void drawBoard(Graphics2D g2) {
+        for (int j = 0; j < 4; j++) {
+
+
+            for (int i = 0; i < 4; i++) {
+
+                drawSquare(g2, 2 * i, 2 * j, true);
+                drawSquare(g2, 2 * i + 1, 2 * j + 1, true);
+                drawSquare(g2, 2 * i + 1, 2 * j, false);
+                drawSquare(g2, 2 * i, 2 * j + 1, false);
+            }
+
+
+
+        }
+    }
+
+
+    @Override
+    public void mouseClicked(MouseEvent e) {
+
+    }
+
+    @Override
+    public void mousePressed(MouseEvent e) {
+        if (cellSide <= 0) return;
+
+
+        fromCol = (e.getPoint().x - originX)/cellSide;
+        fromRow = 7 - (e.getPoint().y - originY)/cellSide;
+
+        movingPiece = chessDelegate.pieceAt(fromCol,fromRow);
+
+        // Calculate legal moves for the selected piece in one pass
+        chessDelegate.generateMovesFrom(fromCol, fromRow, legalMoves);
+
+        repaintLegalMoves();
+
+
+    }
+
+    @Override
+    public void mouseReleased(MouseEvent e) {
+
+        if (movingPiecePoint != null) repaintAround(movingPiecePoint);
+        repaintSquare(fromCol, fromRow);
+        repaintLegalMoves();
+
+        if(movingPiece != null)
+        {
+            int col = (e.getPoint().x - originX)/cellSide;
+            int row = 7- (e.getPoint().y - originY)/cellSide;
+
+            if(fromCol != col || fromRow != row)
+            {
+                chessDelegate.movePiece(fromCol, fromRow, col, row);
+            }
+
+
+        }
+
+        movingPiece = null;
+        movingPiecePoint = null;
+        legalMoves.clear();
+
+
+    }
+
+    @Override
+    public void mouseEntered(MouseEvent e) {
+
+    }
+
+    @Override
+    public void mouseExited(MouseEvent e) {
+
+    }
+
+
+
+
+
+    /*Mouse Move Listener*/
+    @Override
+    public void mouseDragged(MouseEvent e) {
+
+        if(movingPiece != null)
+        {
+            // Only where the piece was and where it is now
+            if (movingPiecePoint != null) {
+                repaintAround(movingPiecePoint);
+            } else {
+                repaintSquare(fromCol, fromRow);
+            }
+            movingPiecePoint = e.getPoint();
+            repaintAround(movingPiecePoint);
+        }
+
+    }
+
+    @Override
+    public void mouseMoved(MouseEvent e) {
+
+    }
+}
\ No newline at end of file
@@ -0,0 +1,90 @@
+package org.example;
+
+import javax.imageio.ImageIO;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+//all twelve piece images in one PNG, a row of white pieces over a row of black ones.
+//Read from the class path as a stream, so it works the same from a jar and from classes.
+//The atlas is made from the single images with main(), which is run again when they change.
+public class SpriteAtlas {
+
+    static final String RESOURCE = "img/pieces.png";
+    //pixels per piece in the atlas, enough for a high-DPI board without upscaling
+    static final int DEFAULT_CELL = 256;
+
+    //in atlas order, by piece code (player * 6 + rank)
+    static final String[] NAMES = {
+            ChessConstants.wKing, ChessConstants.wQueen, ChessConstants.wBishop,
+            ChessConstants.wRook, ChessConstants.wKnight, ChessConstants.wPawn,
+            ChessConstants.bKing, ChessConstants.bQueen, ChessConstants.bBishop,
+            ChessConstants.bRook, ChessConstants.bKnight, ChessConstants.bPawn,
+    };
+
+    private SpriteAtlas() {
+    }
+
+    //the piece images by name. Takes the atlas if there is one, otherwise packs the single images.
+    static Map<String, BufferedImage> load() throws IOException {
+        BufferedImage atlas = read(RESOURCE);
+        if (atlas == null) atlas = pack(SpriteAtlas::read, DEFAULT_CELL);
+
+        int cell = atlas.getWidth() / 6;
+        Map<String, BufferedImage> sprites = new HashMap<>();
+        for (int i = 0; i < NAMES.length; i++) {
+            sprites.put(NAMES[i], atlas.getSubimage(i % 6 * cell, i / 6 * cell, cell, cell));
+        }
+        return sprites;
+    }
+
+    //null if there is no such resource
+    private static BufferedImage read(String resource) throws IOException {
+        try (InputStream in = SpriteAtlas.class.getClassLoader().getResourceAsStream(resource)) {
+            if (in == null) return null;
+            //in memory, ImageIO would otherwise buffer the stream through a temporary file
+            return ImageIO.read(new MemoryCacheImageInputStream(in));
+        }
+    }
+
+    private interface ImageSource {
+        BufferedImage read(String name) throws IOException;
+    }
+
+    //scales every single image into a cell of the atlas, a missing one leaves its cell empty
+    private static BufferedImage pack(ImageSource source, int cell) throws IOException {
+        BufferedImage atlas = new BufferedImage(6 * cell, 2 * cell, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2 = atlas.createGraphics();
+        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        for (int i = 0; i < NAMES.length; i++) {
+            BufferedImage image = source.read("img/" + NAMES[i] + ".png");
+            if (image != null) g2.drawImage(image, i % 6 * cell, i / 6 * cell, cell, cell, null);
+        }
+        g2.dispose();
+        return atlas;
+    }
+
+    // usage: SpriteAtlas <image directory> <atlas.png> [cell pixels]
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("usage: SpriteAtlas <image directory> <atlas.png> [cell pixels]");
+            return;
+        }
+        Path directory = Path.of(args[0]);
+        int cell = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_CELL;
+
+        BufferedImage atlas = pack(name -> {
+            Path file = directory.resolve(Path.of(name).getFileName());
+            return Files.exists(file) ? ImageIO.read(file.toFile()) : null;
+        }, cell);
+        ImageIO.write(atlas, "png", Path.of(args[1]).toFile());
+        System.out.println("wrote " + args[1] + ", " + atlas.getWidth() + "x" + atlas.getHeight());
+    }
+}